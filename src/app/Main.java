@@ -1,28 +1,83 @@
 package app;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Scanner;
 import java.util.List;
 import engine.MorphologyEngine;
+import io.CorpusProcessor;
+import io.DerivativeLog;
 import io.FileLoader;
+import io.SchemeReloader;
+import io.SnapshotStore;
 import models.Root;
 import models.Node;
 import models.Scheme;
 import models.ValidationResult;
 import structures.AVLTree;
 import structures.HashTableSchemes;
+import utils.Metrics;
 import utils.Utils;
 
 public class Main {
+    private static final String ROOTS_FILE = "data/racines.txt";
+    private static final String SCHEMES_FILE = "data/schemes.txt";
+    private static final String SNAPSHOT_FILE = "data/lexique.snap";
+    private static final String LOG_FILE = "data/derives.log";
+    private static final int DEFAULT_PORT = 8080;
+    private static final int MAX_THREADS = 1024;
+    private static final int CACHE_CAPACITY = 50_000;
+
     public static void main(String[] args) {
         AVLTree tree = new AVLTree();
         HashTableSchemes schemes = new HashTableSchemes(20);
         MorphologyEngine engine = new MorphologyEngine();
+        // Sans effet si les mesures sont désactivées (-Dmorpho.metrics=true pour les activer)
+        Metrics.register();
 
         System.out.println("=== INITIALISATION DU MOTEUR MORPHOLOGIQUE ===");
-        FileLoader.loadRoots("data/racines.txt", tree);
-        FileLoader.loadSchemes("data/schemes.txt", schemes);
+        // Instantané binaire s'il est plus récent que les fichiers texte
+        Path snapshot = Paths.get(SNAPSHOT_FILE);
+        if (!SnapshotStore.isFresh(snapshot, Paths.get(ROOTS_FILE), Paths.get(SCHEMES_FILE))
+                || !SnapshotStore.load(snapshot, tree, schemes)) {
+            FileLoader.loadRoots(ROOTS_FILE, tree);
+            FileLoader.loadSchemes(SCHEMES_FILE, schemes);
+            // Les dérivés d'un instantané périmé sont conservés
+            SnapshotStore.loadDerivatives(snapshot, tree);
+            SnapshotStore.save(snapshot, tree, schemes);
+        }
+        enableOptions(engine, tree, schemes, CACHE_CAPACITY);
         System.out.println();
 
+        // Mode lot : java app.Main --batch <corpus> <sortie> [threads]
+        if (args.length >= 3 && args[0].equals("--batch")) {
+            int threads = args.length >= 4
+                    ? parseArgument(args[3], 1, MAX_THREADS)
+                    : Runtime.getRuntime().availableProcessors();
+            if (threads < 0) {
+                System.err.println("❌ Nombre de threads invalide: " + args[3] + " (1 à " + MAX_THREADS + ")");
+                printUsage();
+                return;
+            }
+            runBatch(engine, tree, schemes, args[1], args[2], threads);
+            return;
+        }
+
+        // Mode serveur : java app.Main --server [port]
+        if (args.length >= 1 && args[0].equals("--server")) {
+            int port = args.length >= 2 ? parseArgument(args[1], 0, 65535) : DEFAULT_PORT;
+            if (port < 0) {
+                System.err.println("❌ Port invalide: " + args[1] + " (0 à 65535)");
+                printUsage();
+                return;
+            }
+            runServer(engine, tree, schemes, snapshot, port);
+            return;
+        }
+
+        DerivativeLog log = openLog(snapshot, tree, schemes);
+        SchemeReloader reloader = startReloader(schemes);
         Scanner sc = new Scanner(System.in);
 
         while (true) {
@@ -37,6 +92,7 @@ public class Main {
             System.out.println("│ 6. Ajouter un nouveau schème                  │");
             System.out.println("│ 7. Afficher toutes les racines                 │");
             System.out.println("│ 8. Afficher tous les schèmes                   │");
+            System.out.println("│ 9. Afficher les mesures de performance         │");
             System.out.println("│ 0. Quitter                                     │");
             System.out.println("└────────────────────────────────────────────────┘");
             System.out.print("Choix: ");
@@ -45,6 +101,11 @@ public class Main {
             sc.nextLine();
 
             if (choice == 0) {
+                // Conserve les racines et dérivés ajoutés pendant la session
+                if (reloader != null) {
+                    reloader.close();
+                }
+                closeLog(log, snapshot, tree, schemes);
                 System.out.println("Au revoir !");
                 break;
             }
@@ -70,14 +131,14 @@ public class Main {
                     }
                     String result = engine.generate(root, scheme);
                     System.out.println("✅ Résultat: " + result);
-                    root.addDerivative(result);
+                    addDerivative(log, root, result);
                     System.out.println("✓ Ajouté aux dérivés validés de la racine " + r);
                     break;
 
                 case 2:
                     System.out.println("\n=== VALIDATION MORPHOLOGIQUE ===");
                     System.out.print("Mot à valider: ");
-                    String word = sc.nextLine();
+                    String word = sc.nextLine().trim();
                     System.out.print("Racine supposée: ");
                     String rootStr = sc.nextLine();
                     Node nodeVal = tree.search(rootStr);
@@ -89,7 +150,7 @@ public class Main {
                     if (valResult.isValid()) {
                         System.out.println("✅ OUI - Le mot '" + word + "' appartient à la racine '" + rootStr + "'");
                         System.out.println("   Schème utilisé: " + valResult.getScheme().getName() + " (" + valResult.getScheme().getPattern() + ")");
-                        nodeVal.getRoot().addDerivative(word);
+                        addDerivative(log, nodeVal.getRoot(), word);
                         System.out.println("✓ Ajouté aux dérivés validés");
                     } else {
                         System.out.println("❌ NON - Le mot '" + word + "' n'appartient pas à la racine '" + rootStr + "'");
@@ -112,7 +173,7 @@ public class Main {
                     for (Scheme sch : allSchemes) {
                         String derived = engine.generate(nodeFamily.getRoot(), sch);
                         System.out.printf("│ %-12s → %-20s │%n", sch.getName(), derived);
-                        nodeFamily.getRoot().addDerivative(derived);
+                        addDerivative(log, nodeFamily.getRoot(), derived);
                     }
                     System.out.println("└─────────────────────────────────────────┘");
                     System.out.println("✓ Tous les dérivés ont été ajoutés à la liste validée");
@@ -151,7 +212,7 @@ public class Main {
                         break;
                     }
 
-                    if (tree.search(newRoot) != null) {
+                    if (tree.contains(newRoot)) {
                         System.out.println("❌ Cette racine existe déjà !");
                         break;
                     }
@@ -193,6 +254,10 @@ public class Main {
                     schemes.displayAll();
                     break;
 
+                case 9:
+                    printMetrics(engine, tree);
+                    break;
+
                 default:
                     System.out.println("❌ Choix invalide !");
             }
@@ -200,4 +265,142 @@ public class Main {
 
         sc.close();
     }
+
+    // Structures optionnelles du moteur, désactivées par défaut : l'index et
+    // le filtre génèrent chacun toutes les formes racine x schème, ce qui
+    // annulerait le démarrage rapide depuis l'instantané.
+    // -Dmorpho.index=true, -Dmorpho.filter=true, -Dmorpho.matcher=true, -Dmorpho.cache=true
+    static void enableOptions(MorphologyEngine engine, AVLTree tree, HashTableSchemes schemes, int cacheCapacity) {
+        if (Boolean.getBoolean("morpho.index")) {
+            engine.enableIndex(tree, schemes);
+        }
+        if (Boolean.getBoolean("morpho.filter")) {
+            engine.enableFilter(tree, schemes);
+        }
+        if (Boolean.getBoolean("morpho.matcher")) {
+            engine.enableMatcher(schemes);
+        }
+        if (Boolean.getBoolean("morpho.cache")) {
+            engine.enableCache(tree, schemes, cacheCapacity);
+        }
+    }
+
+    // Entier de [min, max], -1 si la valeur n'en est pas un
+    private static int parseArgument(String value, int min, int max) {
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            return parsed >= min && parsed <= max ? parsed : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void printUsage() {
+        System.err.println("Usage: java app.Main                       (mode interactif)");
+        System.err.println("       java app.Main --batch <corpus> <sortie> [threads]");
+        System.err.println("       java app.Main --server [port]");
+        System.err.println("Options : -Dmorpho.index=true -Dmorpho.filter=true -Dmorpho.matcher=true -Dmorpho.cache=true");
+    }
+
+    private static void runBatch(MorphologyEngine engine, AVLTree tree, HashTableSchemes schemes,
+                                 String input, String output, int threads) {
+        System.out.println("=== TRAITEMENT PAR LOTS ===");
+        System.out.println("Corpus: " + input + " -> " + output + " (" + threads + " threads)");
+
+        CorpusProcessor processor = new CorpusProcessor(engine, tree, schemes, threads);
+        long start = System.nanoTime();
+        try {
+            processor.process(Paths.get(input), Paths.get(output));
+        } catch (IOException e) {
+            System.err.println("❌ Erreur lors du traitement du corpus: " + e.getMessage());
+            return;
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.println("✅ " + processor.getLines() + " lignes, " + processor.getTokens() + " mots, "
+                + processor.getRecognized() + " reconnus en " + elapsedMs + " ms");
+        if (Metrics.ENABLED) {
+            printMetrics(engine, tree);
+        }
+    }
+
+    private static void printMetrics(MorphologyEngine engine, AVLTree tree) {
+        System.out.println();
+        System.out.print(Metrics.dumpText());
+        System.out.println();
+        System.out.println("Hauteur de l'arbre: " + tree.getMaxHeight() + " (" + tree.size() + " racines)");
+        if (engine.getCache() != null) {
+            System.out.println(engine.getCache());
+        }
+    }
+
+    // Le serveur tourne sur ses propres threads ; l'arrêt de la JVM (Ctrl+C)
+    // ferme proprement le journal et l'instantané
+    private static void runServer(MorphologyEngine engine, AVLTree tree, HashTableSchemes schemes,
+                                  Path snapshot, int port) {
+        System.out.println("=== SERVEUR HTTP ===");
+        DerivativeLog log = openLog(snapshot, tree, schemes);
+        SchemeReloader reloader = startReloader(schemes);
+        Server server = new Server(engine, tree, schemes, log);
+
+        try {
+            server.start(port);
+        } catch (IOException e) {
+            System.err.println("❌ Impossible de démarrer le serveur: " + e.getMessage());
+            if (reloader != null) {
+                reloader.close();
+            }
+            closeLog(log, snapshot, tree, schemes);
+            return;
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            if (reloader != null) {
+                reloader.close();
+            }
+            closeLog(log, snapshot, tree, schemes);
+        }));
+    }
+
+    // Journal des dérivés rejoué sur le lexique chargé ; null si indisponible
+    private static DerivativeLog openLog(Path snapshot, AVLTree tree, HashTableSchemes schemes) {
+        try {
+            return DerivativeLog.open(Paths.get(LOG_FILE), snapshot, tree, schemes);
+        } catch (IOException e) {
+            System.err.println("❌ Journal des dérivés indisponible: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Surveille schemes.txt et remplace la table à chaque modification ; null si indisponible
+    private static SchemeReloader startReloader(HashTableSchemes schemes) {
+        try {
+            return SchemeReloader.start(Paths.get(SCHEMES_FILE), schemes);
+        } catch (IOException e) {
+            System.err.println("❌ Rechargement automatique des schèmes indisponible: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Ajoute le dérivé et le journalise s'il est nouveau
+    private static void addDerivative(DerivativeLog log, Root root, String word) {
+        if (root.addDerivative(word) && log != null) {
+            log.append(root, word);
+        }
+    }
+
+    // Compacte le journal dans l'instantané, ou écrit seulement l'instantané sans journal
+    private static void closeLog(DerivativeLog log, Path snapshot, AVLTree tree, HashTableSchemes schemes) {
+        if (log == null) {
+            SnapshotStore.save(snapshot, tree, schemes);
+            return;
+        }
+        try {
+            log.compact();
+        } catch (IOException e) {
+            System.err.println("❌ Erreur lors du compactage du journal: " + e.getMessage());
+        }
+        log.close();
+    }
 }
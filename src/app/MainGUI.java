@@ -12,7 +12,9 @@ import javafx.scene.text.FontWeight;
 import javafx.stage.Stage;
 import javafx.application.Platform;
 import engine.MorphologyEngine;
+import io.DerivativeLog;
 import io.FileLoader;
+import io.SnapshotStore;
 import models.Root;
 import models.Node;
 import models.Scheme;
@@ -21,6 +23,9 @@ import structures.AVLTree;
 import structures.HashTableSchemes;
 import utils.Utils;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Optional;
 
@@ -32,6 +37,13 @@ public class MainGUI extends Application {
     private TextArea outputArea;
     private Label racinesStatLabel;
     private Label schemesStatLabel;
+    private DerivativeLog log;
+
+    private static final String ROOTS_FILE = "data/racines.txt";
+    // Schèmes de base de l'interface : instantané distinct de celui de Main
+    private static final Path SNAPSHOT_FILE = Paths.get("data/lexique-gui.snap");
+    private static final Path LOG_FILE = Paths.get("data/derives-gui.log");
+    private static final int CACHE_CAPACITY = 10_000;
 
     private static final String PRIMARY_COLOR = "#667eea";
     private static final String SECONDARY_COLOR = "#764ba2";
@@ -51,8 +63,20 @@ public class MainGUI extends Application {
         schemes = new HashTableSchemes(50);
         engine = new MorphologyEngine();
 
-        FileLoader.loadRoots("data/racines.txt", tree);
-        initializeBasicSchemes();
+        if (!SnapshotStore.isFresh(SNAPSHOT_FILE, Paths.get(ROOTS_FILE))
+                || !SnapshotStore.load(SNAPSHOT_FILE, tree, schemes)) {
+            FileLoader.loadRoots(ROOTS_FILE, tree);
+            initializeBasicSchemes();
+            SnapshotStore.loadDerivatives(SNAPSHOT_FILE, tree);
+            SnapshotStore.save(SNAPSHOT_FILE, tree, schemes);
+        }
+        try {
+            log = DerivativeLog.open(LOG_FILE, SNAPSHOT_FILE, tree, schemes);
+        } catch (IOException e) {
+            System.err.println("Journal des dérivés indisponible: " + e.getMessage());
+        }
+        // Mêmes options que Main (-Dmorpho.index=true, ...)
+        Main.enableOptions(engine, tree, schemes, CACHE_CAPACITY);
 
         primaryStage.setTitle("Moteur Morphologique Arabe");
         primaryStage.setMinWidth(800);
@@ -399,7 +423,7 @@ public class MainGUI extends Application {
                 if (selectedScheme == null) { showError("Scheme non trouve: " + schemeName); return; }
 
                 String result = engine.generate(n.getRoot(), selectedScheme);
-                n.getRoot().addDerivative(result);
+                addDerivative(n.getRoot(), result);
 
                 StringBuilder sb = new StringBuilder();
                 sb.append("--------------------------------------------------\n");
@@ -444,7 +468,7 @@ public class MainGUI extends Application {
 
                 ValidationResult result = engine.validate(word, n.getRoot(), schemes);
                 if (result.isValid()) {
-                    n.getRoot().addDerivative(word);
+                    addDerivative(n.getRoot(), word);
                     showSimpleAnalysis(word, result);
                 } else {
                     StringBuilder sb = new StringBuilder();
@@ -482,7 +506,7 @@ public class MainGUI extends Application {
             for (Scheme scheme : allSchemes) {
                 String derived = engine.generate(root, scheme);
                 sb.append(String.format("%-20s -> %s\n", scheme.getName(), derived));
-                root.addDerivative(derived);
+                addDerivative(root, derived);
                 count++;
             }
 
@@ -532,7 +556,7 @@ public class MainGUI extends Application {
 
             if (result.isValid()) {
                 Node n = tree.search(result.getRoot().getLetters());
-                if (n != null) n.getRoot().addDerivative(word);
+                if (n != null) addDerivative(n.getRoot(), word);
             }
         });
     }
@@ -560,7 +584,7 @@ public class MainGUI extends Application {
                 return;
             }
 
-            if (tree.search(rootStr) != null) {
+            if (tree.contains(rootStr)) {
                 showError("Cette racine existe deja");
                 return;
             }
@@ -917,6 +941,29 @@ public class MainGUI extends Application {
         alert.showAndWait();
     }
 
+    // Ajoute le dérivé et le journalise s'il est nouveau
+    private void addDerivative(Root root, String word) {
+        if (root.addDerivative(word) && log != null) {
+            log.append(root, word);
+        }
+    }
+
+    // Conserve les racines, schèmes et dérivés ajoutés pendant la session
+    @Override
+    public void stop() {
+        if (tree == null) return;
+        if (log == null) {
+            SnapshotStore.save(SNAPSHOT_FILE, tree, schemes);
+            return;
+        }
+        try {
+            log.compact();
+        } catch (IOException e) {
+            System.err.println("Erreur lors du compactage du journal: " + e.getMessage());
+        }
+        log.close();
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
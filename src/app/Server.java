@@ -0,0 +1,314 @@
+package app;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import engine.MorphologyEngine;
+import io.DerivativeLog;
+import models.Node;
+import models.Root;
+import models.Scheme;
+import models.ValidationResult;
+import structures.AVLTree;
+import structures.HashTableSchemes;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Service HTTP d'analyse morphologique (serveur HTTP du JDK).
+ * Chaque requête s'exécute sur son propre thread virtuel : pas de plafond
+ * de pool, une requête bloquée n'immobilise pas de thread système.
+ * Les lectures de l'arbre et de la table des schèmes sont sans verrou,
+ * les requêtes concurrentes partagent donc les mêmes structures.
+ *
+ * Points d'accès (paramètres dans la chaîne de requête, réponses JSON) :
+ *   GET  /generate?root=كتب&scheme=فاعل
+ *   GET  /validate?word=كاتب&root=كتب
+ *   GET  /decompose?word=كاتب
+ *   GET  /family?root=كتب
+ *   GET  /derivatives?root=كتب
+ *   POST /derivatives?root=كتب&word=كاتب   (mot validé puis ajouté)
+ */
+public class Server {
+
+    // File d'attente des connexions entrantes
+    private static final int BACKLOG = 4096;
+
+    private final MorphologyEngine engine;
+    private final AVLTree tree;
+    private final HashTableSchemes schemes;
+    private final DerivativeLog log;
+
+    private HttpServer http;
+    private ExecutorService executor;
+
+
+    public Server(MorphologyEngine engine, AVLTree tree, HashTableSchemes schemes, DerivativeLog log) {
+        this.engine = engine;
+        this.tree = tree;
+        this.schemes = schemes;
+        this.log = log;
+    }
+
+    // ========== CYCLE DE VIE ==========
+
+    public void start(int port) throws IOException {
+        http = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        http.setExecutor(executor);
+
+        http.createContext("/generate", handler(this::generate));
+        http.createContext("/validate", handler(this::validate));
+        http.createContext("/decompose", handler(this::decompose));
+        http.createContext("/family", handler(this::family));
+        http.createContext("/derivatives", handler(this::derivatives));
+        http.start();
+
+        System.out.println("Serveur à l'écoute sur le port " + http.getAddress().getPort());
+    }
+
+    public void stop() {
+        if (http != null) {
+            http.stop(1);
+            executor.shutdown();
+        }
+    }
+
+    public int getPort() {
+        return http.getAddress().getPort();
+    }
+
+    // ========== POINTS D'ACCÈS ==========
+
+    private String generate(HttpExchange exchange, Map<String, String> params) throws HttpError {
+        requireMethod(exchange, "GET");
+        Root root = findRoot(params);
+        Scheme scheme = schemes.search(require(params, "scheme"));
+        if (scheme == null) {
+            throw new HttpError(404, "Schème non trouvé: " + params.get("scheme"));
+        }
+
+        return new Json()
+                .field("root", root.getLetters())
+                .field("scheme", scheme.getName())
+                .field("pattern", scheme.getPattern())
+                .field("word", engine.generate(root, scheme))
+                .end();
+    }
+
+    private String validate(HttpExchange exchange, Map<String, String> params) throws HttpError {
+        requireMethod(exchange, "GET");
+        String word = require(params, "word");
+        Root root = findRoot(params);
+        return result(word, engine.validate(word, root, schemes));
+    }
+
+    private String decompose(HttpExchange exchange, Map<String, String> params) throws HttpError {
+        requireMethod(exchange, "GET");
+        String word = require(params, "word");
+        return result(word, engine.decomposeWord(word, tree, schemes));
+    }
+
+    private String family(HttpExchange exchange, Map<String, String> params) throws HttpError {
+        requireMethod(exchange, "GET");
+        Root root = findRoot(params);
+
+        StringBuilder forms = new StringBuilder("[");
+        List<Scheme> allSchemes = schemes.getAllSchemes();
+        for (int i = 0; i < allSchemes.size(); i++) {
+            Scheme scheme = allSchemes.get(i);
+            if (i > 0) forms.append(',');
+            forms.append(new Json()
+                    .field("scheme", scheme.getName())
+                    .field("word", engine.generate(root, scheme))
+                    .end());
+        }
+        forms.append(']');
+
+        return new Json()
+                .field("root", root.getLetters())
+                .raw("forms", forms.toString())
+                .end();
+    }
+
+    private String derivatives(HttpExchange exchange, Map<String, String> params) throws HttpError {
+        Root root = findRoot(params);
+
+        if (exchange.getRequestMethod().equals("POST")) {
+            // Mot gardé tel qu'il est écrit, comme dans la console et l'interface
+            String word = require(params, "word");
+            ValidationResult result = engine.validate(word, root, schemes);
+            boolean added = false;
+            if (result.isValid()) {
+                added = root.addDerivative(word);
+                if (added && log != null) {
+                    log.append(root, word);
+                }
+            }
+            return new Json()
+                    .field("root", root.getLetters())
+                    .field("word", word)
+                    .field("valid", result.isValid())
+                    .field("added", added)
+                    .end();
+        }
+
+        requireMethod(exchange, "GET");
+        return new Json()
+                .field("root", root.getLetters())
+                .field("type", root.getType())
+                .array("derivatives", root.getValidatedDerivatives())
+                .end();
+    }
+
+    private String result(String word, ValidationResult result) {
+        Json json = new Json().field("word", word).field("valid", result.isValid());
+        if (result.isValid()) {
+            json.field("root", result.getRoot().getLetters())
+                    .field("type", result.getRoot().getType())
+                    .field("scheme", result.getScheme().getName())
+                    .field("pattern", result.getScheme().getPattern());
+        }
+        return json.end();
+    }
+
+    private Root findRoot(Map<String, String> params) throws HttpError {
+        String letters = require(params, "root");
+        Node node = tree.search(letters);
+        if (node == null) {
+            throw new HttpError(404, "Racine non trouvée: " + letters);
+        }
+        return node.getRoot();
+    }
+
+    // ========== REQUÊTES ET RÉPONSES ==========
+
+    private interface Endpoint {
+        String handle(HttpExchange exchange, Map<String, String> params) throws HttpError;
+    }
+
+    private static final class HttpError extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private static HttpHandler handler(Endpoint endpoint) {
+        return exchange -> {
+            int status = 200;
+            String body;
+            try {
+                body = endpoint.handle(exchange, parseQuery(exchange.getRequestURI().getRawQuery()));
+            } catch (HttpError e) {
+                status = e.status;
+                body = new Json().field("error", e.getMessage()).end();
+            } catch (RuntimeException e) {
+                status = 500;
+                body = new Json().field("error", String.valueOf(e)).end();
+            }
+
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        };
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8).trim());
+        }
+        return params;
+    }
+
+    private static String require(Map<String, String> params, String name) throws HttpError {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new HttpError(400, "Paramètre manquant: " + name);
+        }
+        return value;
+    }
+
+    private static void requireMethod(HttpExchange exchange, String method) throws HttpError {
+        if (!exchange.getRequestMethod().equals(method)) {
+            throw new HttpError(405, "Méthode non autorisée: " + exchange.getRequestMethod());
+        }
+    }
+
+    // Objet JSON construit au fil de l'eau
+    private static final class Json {
+        private final StringBuilder sb = new StringBuilder("{");
+
+        Json field(String name, String value) {
+            return raw(name, value == null ? "null" : quote(value));
+        }
+
+        Json field(String name, boolean value) {
+            return raw(name, String.valueOf(value));
+        }
+
+        Json array(String name, List<String> values) {
+            StringBuilder items = new StringBuilder("[");
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) items.append(',');
+                items.append(quote(values.get(i)));
+            }
+            return raw(name, items.append(']').toString());
+        }
+
+        Json raw(String name, String json) {
+            if (sb.length() > 1) sb.append(',');
+            sb.append(quote(name)).append(':').append(json);
+            return this;
+        }
+
+        String end() {
+            return sb.append('}').toString();
+        }
+
+        private static String quote(String s) {
+            StringBuilder out = new StringBuilder(s.length() + 2).append('"');
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                switch (c) {
+                    case '"': out.append("\\\""); break;
+                    case '\\': out.append("\\\\"); break;
+                    case '\n': out.append("\\n"); break;
+                    case '\r': out.append("\\r"); break;
+                    case '\t': out.append("\\t"); break;
+                    default:
+                        if (c < 0x20) {
+                            out.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            out.append(c);
+                        }
+                }
+            }
+            return out.append('"').toString();
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package bench;
+
+import engine.MorphologyEngine;
+import io.FileLoader;
+import models.Node;
+import models.Root;
+import models.Scheme;
+import structures.AVLTree;
+import structures.HashTableSchemes;
+import structures.PackedRootIndex;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Banc de mesure des performances : arbre AVL, table des schèmes,
+ * moteur morphologique et chargement des fichiers.
+ * Chaque mesure est paramétrée par la taille du lexique (fichiers de data/
+ * puis lexiques synthétiques) et comparable à une référence enregistrée.
+ *
+ * Usage : java bench.Benchmarks [--sizes 0,1000,100000] [--out fichier]
+ *                               [--baseline bench/baseline.txt]
+ * (taille 0 = lexique livré dans data/)
+ */
+public class Benchmarks {
+
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURE_ITERATIONS = 5;
+    private static final long ITERATION_NANOS = 200_000_000L;
+    private static final long SEED = 42;
+
+    // Évite que le JIT n'élimine les résultats non utilisés
+    private static long sink;
+
+    private final List<String> results = new ArrayList<>();
+
+
+    interface Operation {
+        long run(int i);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int[] sizes = {0, 1_000, 100_000};
+        String out = null;
+        String baseline = null;
+
+        for (int i = 0; i < args.length - 1; i++) {
+            switch (args[i]) {
+                case "--sizes":
+                    String[] parts = args[++i].split(",");
+                    sizes = new int[parts.length];
+                    for (int j = 0; j < parts.length; j++) {
+                        sizes[j] = Integer.parseInt(parts[j].trim());
+                    }
+                    break;
+                case "--out":
+                    out = args[++i];
+                    break;
+                case "--baseline":
+                    baseline = args[++i];
+                    break;
+            }
+        }
+
+        Benchmarks bench = new Benchmarks();
+        System.out.printf("%-28s %10s %14s%n", "benchmark", "taille", "ns/op");
+        for (int size : sizes) {
+            bench.runAll(Lexicon.load(size, SEED));
+        }
+
+        if (out != null) {
+            Files.write(Path.of(out), bench.results, StandardCharsets.UTF_8);
+            System.out.println("Résultats écrits dans " + out);
+        }
+        if (baseline != null) {
+            bench.compare(Path.of(baseline));
+        }
+        System.out.println("(" + sink + ")");
+    }
+
+    // ========== SCÉNARIOS ==========
+
+    private void runAll(Lexicon lexicon) throws IOException {
+        int n = lexicon.size;
+        Random random = new Random(SEED);
+        List<String> roots = lexicon.roots;
+
+        // --- Arbre AVL ---
+        measure("avl.insert", n, i -> lexicon.buildTree().getCount(), n);
+
+        AVLTree tree = lexicon.buildTree();
+        String[] probes = new String[1024];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = roots.get(random.nextInt(n));
+        }
+        measure("avl.search", n, i -> {
+            Node node = tree.search(probes[i & 1023]);
+            return node == null ? 0 : 1;
+        }, 1);
+        measure("avl.getAllRoots", n, i -> tree.getAllRoots().size(), n);
+
+        // Index compact : racines de 3 lettres seulement (clés Utils.packRoot)
+        List<String> triliterals = lexicon.triliterals;
+        String[] packedProbes = new String[1024];
+        for (int i = 0; i < packedProbes.length; i++) {
+            packedProbes[i] = triliterals.get(random.nextInt(triliterals.size()));
+        }
+        PackedRootIndex packed = new PackedRootIndex(triliterals.size());
+        for (Root r : tree.getAllRoots()) {
+            if (r.getLetters().length() == 3) {
+                packed.insert(r);
+            }
+        }
+        measure("packed.search", n, i -> packed.search(packedProbes[i & 1023]) == null ? 0 : 1, 1);
+
+        // --- Table des schèmes ---
+        List<Scheme> synthetic = Lexicon.syntheticSchemes(Math.max(n, 16));
+        measure("schemes.insert", synthetic.size(), i -> {
+            HashTableSchemes table = new HashTableSchemes(Math.max(16, synthetic.size() * 2));
+            Lexicon.quietly(() -> synthetic.forEach(table::insert));
+            return table.size();
+        }, synthetic.size());
+        measure("schemes.resize", synthetic.size(), i -> {
+            // Capacité initiale minimale : tous les redimensionnements sont mesurés
+            HashTableSchemes table = new HashTableSchemes(2);
+            Lexicon.quietly(() -> synthetic.forEach(table::insert));
+            return table.size();
+        }, synthetic.size());
+
+        HashTableSchemes schemes = lexicon.buildSchemes();
+        List<Scheme> shipped = schemes.getAllSchemes();
+        measure("schemes.search", shipped.size(), i -> {
+            Scheme s = schemes.search(shipped.get(i % shipped.size()).getName());
+            return s == null ? 0 : 1;
+        }, 1);
+
+        // --- Moteur morphologique ---
+        // Mots générés à partir de racines trilitères : de vraies recherches,
+        // pas le chemin d'un mot qu'aucune racine n'explique
+        MorphologyEngine engine = new MorphologyEngine();
+        Root[] sampleRoots = new Root[256];
+        String[] words = new String[256];
+        for (int i = 0; i < sampleRoots.length; i++) {
+            sampleRoots[i] = tree.search(triliterals.get(random.nextInt(triliterals.size()))).getRoot();
+            words[i] = engine.generate(sampleRoots[i], shipped.get(random.nextInt(shipped.size())));
+        }
+        measure("engine.generate", n, i ->
+                engine.generate(sampleRoots[i & 255], shipped.get(i % shipped.size())).length(), 1);
+        measure("engine.validate", n, i ->
+                engine.validate(words[i & 255], sampleRoots[i & 255], schemes).isValid() ? 1 : 0, 1);
+        measure("engine.decomposeWord", n, i ->
+                engine.decomposeWord(words[i & 255], tree, schemes).isValid() ? 1 : 0, 1);
+
+        // Même décomposition, racines candidates lues dans le mot par l'automate
+        MorphologyEngine matching = new MorphologyEngine();
+        matching.enableMatcher(schemes);
+        measure("engine.decomposeWord.matcher", n, i ->
+                matching.decomposeWord(words[i & 255], tree, schemes).isValid() ? 1 : 0, 1);
+
+        // --- Chargement des fichiers ---
+        Path rootsFile = lexicon.writeRootsFile();
+        measure("loader.loadRoots", n, i -> {
+            AVLTree loaded = new AVLTree();
+            Lexicon.quietly(() -> FileLoader.loadRoots(rootsFile.toString(), loaded));
+            return loaded.getCount();
+        }, n);
+        measure("loader.loadSchemes", shipped.size(), i -> {
+            HashTableSchemes loaded = new HashTableSchemes(50);
+            Lexicon.quietly(() -> FileLoader.loadSchemes(Lexicon.SCHEMES_FILE, loaded));
+            return loaded.size();
+        }, shipped.size());
+    }
+
+    // ========== MESURE ==========
+
+    // Exécute l'opération en boucle pendant une durée fixe ; opsPerCall
+    // ramène le temps mesuré à l'élément (ex: une insertion d'un lot de n)
+    private void measure(String name, int size, Operation op, int opsPerCall) {
+        for (int w = 0; w < WARMUP_ITERATIONS; w++) {
+            runFor(op);
+        }
+
+        double best = Double.MAX_VALUE;
+        double total = 0;
+        for (int m = 0; m < MEASURE_ITERATIONS; m++) {
+            double nsPerCall = runFor(op);
+            best = Math.min(best, nsPerCall);
+            total += nsPerCall;
+        }
+        double mean = total / MEASURE_ITERATIONS / Math.max(1, opsPerCall);
+
+        String line = String.format(Locale.ROOT, "%-28s %10d %14.1f", name, size, mean);
+        System.out.println(line);
+        results.add(line);
+    }
+
+    private double runFor(Operation op) {
+        long calls = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            sink += op.run((int) calls);
+            calls++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ITERATION_NANOS);
+        return (double) elapsed / calls;
+    }
+
+    // ========== COMPARAISON AVEC LA RÉFÉRENCE ==========
+
+    private void compare(Path baselineFile) throws IOException {
+        if (!Files.exists(baselineFile)) {
+            System.err.println("Référence introuvable: " + baselineFile);
+            return;
+        }
+
+        Map<String, Double> reference = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(baselineFile, StandardCharsets.UTF_8)) {
+            String[] cols = line.trim().split("\\s+");
+            if (cols.length == 3 && !line.startsWith("#")) {
+                reference.put(cols[0] + " " + cols[1], Double.parseDouble(cols[2]));
+            }
+        }
+
+        PrintStream out = System.out;
+        out.println();
+        out.println("=== Comparaison avec " + baselineFile + " ===");
+        out.printf("%-28s %10s %14s %14s %9s%n", "benchmark", "taille", "référence", "actuel", "gain");
+        for (String line : results) {
+            String[] cols = line.trim().split("\\s+");
+            Double before = reference.get(cols[0] + " " + cols[1]);
+            if (before == null) continue;
+            double now = Double.parseDouble(cols[2]);
+            out.printf(Locale.ROOT, "%-28s %10s %14.1f %14.1f %8.2fx%n", cols[0], cols[1], before, now, before / now);
+        }
+    }
+}
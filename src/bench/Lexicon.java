@@ -0,0 +1,145 @@
+package bench;
+
+import io.FileLoader;
+import models.Root;
+import models.Scheme;
+import structures.AVLTree;
+import structures.HashTableSchemes;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Jeux de données pour les benchmarks : le lexique livré dans data/
+ * ou un lexique synthétique de taille donnée.
+ */
+final class Lexicon {
+
+    static final String ROOTS_FILE = "data/racines.txt";
+    static final String SCHEMES_FILE = "data/schemes.txt";
+
+    // Lettres usuelles uniquement (jamais de harakat, que le moteur retire) :
+    // 28^3 racines trilitères, puis des racines de 4 lettres, 5 lettres...
+    private static final String LETTERS = "ءبتثجحخدذرزسشصضطظعغفقكلمنهوي";
+    // Pas de parcours d'une permutation de 28^n codes (premier avec 2 et 7)
+    private static final long STEP = 7919;
+
+    final int size;
+    final List<String> roots;
+    // Racines de 3 lettres, les seules que le moteur analyse
+    final List<String> triliterals;
+    final List<Scheme> schemes;
+
+    private Lexicon(int size, List<String> roots, List<Scheme> schemes) {
+        this.size = size;
+        this.roots = roots;
+        this.schemes = schemes;
+        this.triliterals = new ArrayList<>();
+        for (String letters : roots) {
+            if (letters.length() == 3) {
+                triliterals.add(letters);
+            }
+        }
+    }
+
+    // size <= 0 : fichiers livrés dans data/
+    static Lexicon load(int size, long seed) throws IOException {
+        List<Scheme> schemes = shippedSchemes();
+        if (size <= 0) {
+            List<String> roots = new ArrayList<>();
+            for (String line : Files.readAllLines(Path.of(ROOTS_FILE), StandardCharsets.UTF_8)) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    roots.add(line);
+                }
+            }
+            return new Lexicon(roots.size(), roots, schemes);
+        }
+        return new Lexicon(size, syntheticRoots(size, seed), schemes);
+    }
+
+    // Racines distinctes, dans un ordre aléatoire : toutes les trilitères
+    // possibles avant la première racine de 4 lettres, et ainsi de suite
+    static List<String> syntheticRoots(int size, long seed) {
+        List<String> roots = new ArrayList<>(size);
+        Random random = new Random(seed);
+        int alphabet = LETTERS.length();
+        long space = (long) alphabet * alphabet * alphabet;
+
+        for (int length = 3; roots.size() < size; length++, space *= alphabet) {
+            long start = (long) (random.nextDouble() * space);
+            long count = Math.min(space, size - roots.size());
+            char[] letters = new char[length];
+            for (long i = 0; i < count; i++) {
+                long code = (start + STEP * i) % space;
+                for (int k = length - 1; k >= 0; k--) {
+                    letters[k] = LETTERS.charAt((int) (code % alphabet));
+                    code /= alphabet;
+                }
+                roots.add(new String(letters));
+            }
+        }
+        Collections.shuffle(roots, random);
+        return roots;
+    }
+
+    static List<Scheme> syntheticSchemes(int count) {
+        List<Scheme> schemes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            schemes.add(new Scheme("schème" + i, "م+C1+C2+" + LETTERS.charAt(i % LETTERS.length()) + "+C3"));
+        }
+        return schemes;
+    }
+
+    private static List<Scheme> shippedSchemes() throws IOException {
+        HashTableSchemes table = new HashTableSchemes(50);
+        quietly(() -> FileLoader.loadSchemes(SCHEMES_FILE, table));
+        return table.getAllSchemes();
+    }
+
+    AVLTree buildTree() {
+        AVLTree tree = new AVLTree();
+        for (String letters : roots) {
+            tree.insert(new Root(letters));
+        }
+        return tree;
+    }
+
+    HashTableSchemes buildSchemes() {
+        HashTableSchemes table = new HashTableSchemes(50);
+        for (Scheme scheme : schemes) {
+            table.insert(new Scheme(scheme.getName(), scheme.getPattern()));
+        }
+        return table;
+    }
+
+    Path writeRootsFile() throws IOException {
+        Path file = Files.createTempFile("bench-racines", ".txt");
+        file.toFile().deleteOnExit();
+        Files.write(file, roots, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    // Les chargeurs écrivent sur la console : on coupe la sortie pendant la mesure
+    static void quietly(Runnable action) {
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        PrintStream sink = new PrintStream(OutputStream.nullOutputStream());
+        System.setOut(sink);
+        System.setErr(sink);
+        try {
+            action.run();
+        } finally {
+            System.setOut(out);
+            System.setErr(err);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package engine;
+
+import models.CompiledPattern;
+import models.Root;
+import models.Scheme;
+import models.ValidationResult;
+import structures.AVLTree;
+import structures.HashTableSchemes;
+import structures.LexiconListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index inverse : mot généré -> liste des analyses (racine, schème).
+ * Les mots sont indexés sans diacritiques (CompiledPattern.normalized).
+ * Construit une fois à partir de l'arbre et de la table des schèmes,
+ * puis tenu à jour par notification à chaque ajout de racine ou
+ * ajout / modification / suppression de schème.
+ */
+public class DerivationIndex implements LexiconListener {
+
+    /**
+     * Une analyse possible d'un mot : la racine et le schème qui le génèrent.
+     */
+    public static final class Analysis {
+        private final Root root;
+        private final Scheme scheme;
+        private final boolean fromType;
+
+        Analysis(Root root, Scheme scheme, boolean fromType) {
+            this.root = root;
+            this.scheme = scheme;
+            this.fromType = fromType;
+        }
+
+        public Root getRoot() {
+            return root;
+        }
+
+        public Scheme getScheme() {
+            return scheme;
+        }
+
+        // Vrai si le schème provient de la table propre au type de la racine
+        public boolean isFromType() {
+            return fromType;
+        }
+
+        public ValidationResult toResult() {
+            return new ValidationResult(true, root, scheme);
+        }
+    }
+
+    private final AVLTree tree;
+    private final HashTableSchemes schemes;
+    // Remplacée d'un seul coup quand toute la table des schèmes est rechargée
+    private volatile ConcurrentHashMap<String, List<Analysis>> forms = new ConcurrentHashMap<>();
+    // Version de la table des schèmes que reflète forms
+    private volatile int schemesVersion = -1;
+    // Index préparé pendant un rechargement, pas encore publié
+    private ConcurrentHashMap<String, List<Analysis>> prepared;
+    private List<Scheme> preparedSchemes;
+
+
+    public DerivationIndex(AVLTree tree, HashTableSchemes schemes) {
+        this.tree = tree;
+        this.schemes = schemes;
+    }
+
+    // ========== CONSTRUCTION ==========
+
+    public synchronized void build() {
+        int version = schemes.getVersion();
+        forms = buildForms(schemes.getAllSchemes());
+        schemesVersion = version;
+    }
+
+    private ConcurrentHashMap<String, List<Analysis>> buildForms(List<Scheme> allSchemes) {
+        ConcurrentHashMap<String, List<Analysis>> built = new ConcurrentHashMap<>();
+        for (Root root : tree.getAllRoots()) {
+            indexRoot(built, root, allSchemes);
+        }
+        return built;
+    }
+
+    // L'index se met à jour à chaque modification du lexique
+    public void attach() {
+        tree.addListener(this);
+        schemes.addListener(this);
+    }
+
+    public void detach() {
+        tree.removeListener(this);
+        schemes.removeListener(this);
+    }
+
+    public boolean covers(AVLTree tree, HashTableSchemes schemes) {
+        return this.tree == tree && this.schemes == schemes;
+    }
+
+    // Faux pendant qu'une modification de la table n'est pas encore reportée
+    public boolean isCurrent() {
+        return schemesVersion == schemes.getVersion();
+    }
+
+    private static void indexRoot(Map<String, List<Analysis>> forms, Root root, List<Scheme> allSchemes) {
+        String letters = root.getValue();
+        if (letters == null || letters.length() != 3) {
+            return;
+        }
+
+        for (Map.Entry<String, String> entry : root.getAvailableSchemes().entrySet()) {
+            Scheme scheme = new Scheme(entry.getKey() + " (déduit)", entry.getValue());
+            add(forms, CompiledPattern.of(entry.getValue()).normalized().fill(letters), new Analysis(root, scheme, true));
+        }
+        for (Scheme scheme : allSchemes) {
+            add(forms, scheme.getCompiled().normalized().fill(letters), new Analysis(root, scheme, false));
+        }
+    }
+
+    private static void add(Map<String, List<Analysis>> forms, String word, Analysis analysis) {
+        forms.compute(word, (key, list) -> {
+            List<Analysis> updated = list == null ? new ArrayList<>(1) : new ArrayList<>(list);
+            updated.add(analysis);
+            return updated;
+        });
+    }
+
+    private void remove(String word, Scheme scheme) {
+        forms.computeIfPresent(word, (key, list) -> {
+            List<Analysis> updated = new ArrayList<>(list.size());
+            for (Analysis a : list) {
+                if (a.scheme != scheme) {
+                    updated.add(a);
+                }
+            }
+            return updated.isEmpty() ? null : updated;
+        });
+    }
+
+    private void addScheme(Scheme scheme, CompiledPattern pattern) {
+        for (Root root : tree.getAllRoots()) {
+            String letters = root.getValue();
+            if (letters != null && letters.length() == 3) {
+                add(forms, pattern.fill(letters), new Analysis(root, scheme, false));
+            }
+        }
+    }
+
+    private void removeScheme(Scheme scheme, CompiledPattern pattern) {
+        for (Root root : tree.getAllRoots()) {
+            String letters = root.getValue();
+            if (letters != null && letters.length() == 3) {
+                remove(pattern.fill(letters), scheme);
+            }
+        }
+    }
+
+    // ========== NOTIFICATIONS ==========
+
+    // Les mises à jour sont sérialisées : une reconstruction ne perd pas
+    // une racine ajoutée pendant qu'elle parcourt l'arbre
+
+    @Override
+    public synchronized void rootInserted(Root root) {
+        indexRoot(forms, root, schemes.getAllSchemes());
+        if (prepared != null) {
+            indexRoot(prepared, root, preparedSchemes);
+        }
+    }
+
+    @Override
+    public synchronized void schemeInserted(Scheme scheme) {
+        addScheme(scheme, scheme.getCompiled().normalized());
+        schemesVersion = schemes.getVersion();
+    }
+
+    @Override
+    public synchronized void schemeModified(Scheme oldScheme, Scheme newScheme) {
+        removeScheme(oldScheme, oldScheme.getCompiled().normalized());
+        addScheme(newScheme, newScheme.getCompiled().normalized());
+        schemesVersion = schemes.getVersion();
+    }
+
+    @Override
+    public synchronized void schemeDeleted(Scheme scheme) {
+        removeScheme(scheme, scheme.getCompiled().normalized());
+        schemesVersion = schemes.getVersion();
+    }
+
+    // Rechargement complet : nouvel index construit à côté avant la
+    // publication de la table, puis publié juste après elle ; les
+    // recherches en cours continuent sur l'ancien
+    @Override
+    public synchronized Runnable prepareSchemesReplaced(List<Scheme> oldSchemes, List<Scheme> newSchemes) {
+        ConcurrentHashMap<String, List<Analysis>> built = buildForms(newSchemes);
+        prepared = built;
+        preparedSchemes = newSchemes;
+        return () -> {
+            synchronized (this) {
+                forms = built;
+                prepared = null;
+                preparedSchemes = null;
+                schemesVersion = schemes.getVersion();
+            }
+        };
+    }
+
+    // ========== RECHERCHE ==========
+
+    public List<Analysis> lookupAll(String word) {
+        List<Analysis> list = forms.get(word);
+        return list == null ? Collections.emptyList() : Collections.unmodifiableList(list);
+    }
+
+    // Première correspondance exacte : la première racine dans l'ordre de
+    // l'arbre, et pour une racine, la première analyse enregistrée. Une
+    // déduction sur une racine antérieure reste à vérifier par l'appelant
+    public ValidationResult lookup(String word) {
+        List<Analysis> list = forms.get(word);
+        if (list == null) {
+            return null;
+        }
+
+        Analysis best = null;
+        for (Analysis a : list) {
+            if (best == null || a.root.compareTo(best.root) < 0) {
+                best = a;
+            }
+        }
+        return best.toResult();
+    }
+
+    public int formCount() {
+        return forms.size();
+    }
+}
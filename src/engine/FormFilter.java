@@ -0,0 +1,239 @@
+package engine;
+
+import models.CompiledPattern;
+import models.Node;
+import models.Root;
+import models.Scheme;
+import structures.AVLTree;
+import structures.HashTableSchemes;
+import structures.LexiconListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtre de Bloom sur toutes les formes générables (racine x schème,
+ * tables par type comprises), sans diacritiques. mightContain répond false seulement si
+ * aucune analyse exacte du mot n'existe : le moteur peut alors sauter
+ * tout le parcours racines x schèmes.
+ *
+ * Ajout de racine ou de schème : les nouvelles formes sont ajoutées au
+ * filtre en place. Modification, suppression ou rechargement de schèmes
+ * (un filtre de Bloom ne sait pas retirer) et dépassement de la capacité
+ * prévue : reconstruction à côté puis publication.
+ */
+public class FormFilter implements LexiconListener {
+
+    // ~1 % de faux positifs : 10 bits par forme, 7 fonctions de hachage
+    private static final int BITS_PER_FORM = 10;
+    private static final int HASHES = 7;
+    private static final int MIN_FORMS = 1024;
+
+    private static final class Bits {
+        final AtomicLongArray words;
+        final long mask;
+        final long capacity;
+        long count;
+
+        Bits(long expectedForms) {
+            long forms = Math.max(MIN_FORMS, expectedForms);
+            long bits = Long.highestOneBit(forms * BITS_PER_FORM - 1) << 1;
+            words = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE - 8, bits >>> 6));
+            mask = ((long) words.length() << 6) - 1;
+            capacity = bits / BITS_PER_FORM;
+        }
+    }
+
+    private final AVLTree tree;
+    private final HashTableSchemes schemes;
+    private volatile Bits bits;
+    // Version de la table des schèmes que reflète bits
+    private volatile int schemesVersion = -1;
+    // Filtre préparé pendant un rechargement, pas encore publié
+    private Bits prepared;
+    private List<Scheme> preparedSchemes;
+
+
+    public FormFilter(AVLTree tree, HashTableSchemes schemes) {
+        this.tree = tree;
+        this.schemes = schemes;
+        this.bits = new Bits(MIN_FORMS);
+    }
+
+    public void attach() {
+        tree.addListener(this);
+        schemes.addListener(this);
+    }
+
+    public void detach() {
+        tree.removeListener(this);
+        schemes.removeListener(this);
+    }
+
+    public boolean covers(AVLTree tree, HashTableSchemes schemes) {
+        return this.tree == tree && this.schemes == schemes;
+    }
+
+    // Faux pendant qu'une modification de la table n'est pas encore reportée :
+    // le filtre pourrait alors manquer les formes d'un nouveau schème
+    public boolean isCurrent() {
+        return schemesVersion == schemes.getVersion();
+    }
+
+    // validate reçoit une racine quelconque : seules celles de l'arbre sont dans le filtre
+    public boolean covers(Root root, HashTableSchemes schemes) {
+        if (this.schemes != schemes || root.getLetters() == null) {
+            return false;
+        }
+        Node node = tree.search(root.getLetters());
+        return node != null && node.getRoot() == root;
+    }
+
+    // ========== CONSTRUCTION ==========
+
+    public synchronized void build() {
+        int version = schemes.getVersion();
+        bits = buildBits(schemes.getAllSchemes(), 0);
+        schemesVersion = version;
+    }
+
+    // Marge pour les ajouts à venir : capacité double du nombre de formes actuel
+    private Bits buildBits(List<Scheme> allSchemes, long extra) {
+        List<Root> roots = tree.getAllRoots();
+        long expected = 0;
+        for (Root root : roots) {
+            expected += root.getAvailableSchemes().size() + allSchemes.size();
+        }
+
+        Bits built = new Bits(2 * (expected + extra));
+        for (Root root : roots) {
+            addRoot(built, root, allSchemes);
+        }
+        return built;
+    }
+
+    private static void addRoot(Bits target, Root root, List<Scheme> allSchemes) {
+        String letters = root.getValue();
+        if (letters == null || letters.length() != 3) {
+            return;
+        }
+        for (Map.Entry<String, String> entry : root.getAvailableSchemes().entrySet()) {
+            add(target, CompiledPattern.of(entry.getValue()).normalized().fill(letters));
+        }
+        for (Scheme scheme : allSchemes) {
+            add(target, scheme.getCompiled().normalized().fill(letters));
+        }
+    }
+
+    private static void add(Bits target, String form) {
+        long hash = hash(form);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < HASHES; i++) {
+            long bit = (h1 + (long) i * h2) & target.mask;
+            long word = target.words.get((int) (bit >>> 6));
+            long flag = 1L << bit;
+            if ((word & flag) == 0) {
+                target.words.getAndAccumulate((int) (bit >>> 6), flag, (a, b) -> a | b);
+            }
+        }
+        target.count++;
+    }
+
+    // Ajout en place tant que la capacité prévue n'est pas atteinte
+    private void grow(long forms) {
+        Bits current = bits;
+        if (current.count + forms > current.capacity) {
+            bits = buildBits(schemes.getAllSchemes(), forms);
+        }
+    }
+
+    // ========== NOTIFICATIONS ==========
+
+    @Override
+    public synchronized void rootInserted(Root root) {
+        List<Scheme> allSchemes = schemes.getAllSchemes();
+        grow(root.getAvailableSchemes().size() + allSchemes.size());
+        addRoot(bits, root, allSchemes);
+        if (prepared != null) {
+            addRoot(prepared, root, preparedSchemes);
+        }
+    }
+
+    @Override
+    public synchronized void schemeInserted(Scheme scheme) {
+        List<Root> roots = tree.getAllRoots();
+        grow(roots.size());
+        Bits current = bits;
+        CompiledPattern pattern = scheme.getCompiled().normalized();
+        for (Root root : roots) {
+            String letters = root.getValue();
+            if (letters != null && letters.length() == 3) {
+                add(current, pattern.fill(letters));
+            }
+        }
+        schemesVersion = schemes.getVersion();
+    }
+
+    @Override
+    public synchronized void schemeModified(Scheme oldScheme, Scheme newScheme) {
+        build();
+    }
+
+    @Override
+    public synchronized void schemeDeleted(Scheme scheme) {
+        build();
+    }
+
+    // Rechargement : filtre construit sur la nouvelle liste avant la
+    // publication de la table, publié juste après elle
+    @Override
+    public synchronized Runnable prepareSchemesReplaced(List<Scheme> oldSchemes, List<Scheme> newSchemes) {
+        Bits built = buildBits(newSchemes, 0);
+        prepared = built;
+        preparedSchemes = newSchemes;
+        return () -> {
+            synchronized (this) {
+                bits = built;
+                prepared = null;
+                preparedSchemes = null;
+                schemesVersion = schemes.getVersion();
+            }
+        };
+    }
+
+    // ========== TEST ==========
+
+    // false : le mot n'est la forme exacte d'aucun couple racine x schème
+    public boolean mightContain(CharSequence word) {
+        Bits current = bits;
+        long hash = hash(word);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < HASHES; i++) {
+            long bit = (h1 + (long) i * h2) & current.mask;
+            if ((current.words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // FNV-1a 64 bits sur les caractères, puis mélange final
+    private static long hash(CharSequence s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    public long getFormCount() {
+        return bits.count;
+    }
+}
@@ -1,40 +1,208 @@
 package engine;
 
+import models.CompiledPattern;
+import models.Node;
 import models.Root;
 import models.Scheme;
 import models.ValidationResult;
 import structures.AVLTree;
 import structures.HashTableSchemes;
+import utils.ArabicNormalizer;
+import utils.Metrics;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Moteur morphologique pour la génération et validation de mots arabes
  * Avec déduction intelligente des schèmes morphologiques basée sur le type de racine
  */
 public class MorphologyEngine {
+
+    // Index inverse optionnel (mot -> analyses), null si désactivé
+    private volatile DerivationIndex index;
+    // Automate d'extraction des lettres de la racine, null si désactivé
+    private volatile PatternMatcher matcher;
+    // Cache des résultats de decomposeWord et validate, null si désactivé
+    private volatile ResultCache cache;
+    // Filtre des formes générables, null si désactivé
+    private volatile FormFilter filter;
+    // false : pas de déduction par l'ordre des lettres, seules les analyses exactes comptent
+    private volatile boolean heuristicFallback = true;
+    // Taille du lexique à partir de laquelle la décomposition est parallélisée
+    private volatile int parallelThreshold = 10_000;
+
+
+    // ========== INDEX INVERSE ==========
+
+    // Construit l'index des mots générables et le tient à jour
+    public void enableIndex(AVLTree tree, HashTableSchemes schemes) {
+        disableIndex();
+        DerivationIndex idx = new DerivationIndex(tree, schemes);
+        idx.attach();
+        idx.build();
+        index = idx;
+    }
+
+    public void disableIndex() {
+        DerivationIndex idx = index;
+        if (idx != null) {
+            idx.detach();
+            index = null;
+        }
+    }
+
+    public DerivationIndex getIndex() {
+        return index;
+    }
+
+    // ========== AUTOMATE DES SCHÈMES ==========
+
+    public void enableMatcher(HashTableSchemes schemes) {
+        disableMatcher();
+        PatternMatcher m = new PatternMatcher(schemes);
+        m.attach();
+        m.build();
+        matcher = m;
+    }
+
+    public void disableMatcher() {
+        PatternMatcher m = matcher;
+        if (m != null) {
+            m.detach();
+            matcher = null;
+        }
+    }
+
+    public PatternMatcher getMatcher() {
+        return matcher;
+    }
+
+    // ========== CACHE DES RÉSULTATS ==========
+
+    // capacity : nombre de mots (et de couples mot/racine) gardés
+    public void enableCache(AVLTree tree, HashTableSchemes schemes, int capacity) {
+        disableCache();
+        ResultCache c = new ResultCache(tree, schemes, capacity);
+        c.attach();
+        cache = c;
+    }
+
+    public void disableCache() {
+        ResultCache c = cache;
+        if (c != null) {
+            c.detach();
+            cache = null;
+        }
+    }
+
+    public ResultCache getCache() {
+        return cache;
+    }
+
+    // ========== FILTRE DES FORMES ==========
+
+    // Rejette sans analyse exacte les mots qu'aucun couple racine x schème ne génère
+    public void enableFilter(AVLTree tree, HashTableSchemes schemes) {
+        disableFilter();
+        FormFilter f = new FormFilter(tree, schemes);
+        f.attach();
+        f.build();
+        filter = f;
+    }
+
+    public void disableFilter() {
+        FormFilter f = filter;
+        if (f != null) {
+            f.detach();
+            filter = null;
+        }
+    }
+
+    public FormFilter getFilter() {
+        return filter;
+    }
+
+    public boolean isHeuristicFallback() {
+        return heuristicFallback;
+    }
+
+    // Les résultats en cache dépendent de ce réglage
+    public void setHeuristicFallback(boolean heuristicFallback) {
+        this.heuristicFallback = heuristicFallback;
+        ResultCache c = cache;
+        if (c != null) {
+            c.clear();
+        }
+    }
+
     public String generate(Root root, Scheme scheme) {
-        return generateFromPattern(root, scheme.getPattern());
+        if (Metrics.ENABLED) {
+            long start = System.nanoTime();
+            String word = generateFromPattern(root, scheme.getCompiled());
+            Metrics.GENERATE.record(System.nanoTime() - start);
+            return word;
+        }
+        return generateFromPattern(root, scheme.getCompiled());
     }
 
     // ========== GÉNÉRATION À PARTIR D'UN PATTERN ==========
-    // Remplace les marqueurs (C1, C2, C3) par les lettres réelles de la racine
+    // Remplit le gabarit compilé (C1, C2, C3) avec les lettres réelles de la racine
 
-    private String generateFromPattern(Root root, String pattern) {
+    private String generateFromPattern(Root root, CompiledPattern pattern) {
         String racine = root.getValue();
 
         if (racine == null || racine.length() != 3) {
             return "[ERREUR: racine invalide]";
         }
-        char lettre1 = racine.charAt(0);
-        char lettre2 = racine.charAt(1);
-        char lettre3 = racine.charAt(2);
-        String result = pattern;
-        result = result.replace("C1", String.valueOf(lettre1));
-        result = result.replace("C2", String.valueOf(lettre2));
-        result = result.replace("C3", String.valueOf(lettre3));
-        result = result.replace(" ", "").replace("+", "");
+        return pattern.fill(racine);
+    }
+
+    // Compare le mot (normalisé) au pattern sans diacritiques, sans générer
+    // de chaîne intermédiaire
+    private boolean matchesPattern(String word, Root root, CompiledPattern pattern) {
+        String racine = root.getValue();
+
+        if (racine == null || racine.length() != 3) {
+            return false;
+        }
+        return pattern.normalized().matches(word, racine);
+    }
+
+    // Les mots sont analysés sans diacritiques, comme les patterns : une forme
+    // générée avec harakat se retrouve, avec ou sans eux
+    private static String normalize(String word) {
+        return ArabicNormalizer.DIACRITICS.normalize(word);
+    }
+
+    // Plusieurs patterns peuvent se confondre une fois les harakat retirés
+    // (فَعْل et فَعَل) : si le schème retenu ne reproduit pas le mot tel
+    // qu'il est écrit, un schème de la même racine qui le reproduit exactement
+    // est préféré, dans l'ordre habituel (type de la racine puis table)
+    private ValidationResult asWritten(String written, ValidationResult result, HashTableSchemes schemes,
+                                       String typeSuffix) {
+        if (written == null || !result.isValid()) {
+            return result;
+        }
+        Root root = result.getRoot();
+        String racine = root.getValue();
+        if (racine == null || racine.length() != 3
+                || result.getScheme().getCompiled().matches(written, racine)) {
+            return result;
+        }
 
+        for (Map.Entry<String, String> entry : root.getAvailableSchemes().entrySet()) {
+            if (CompiledPattern.of(entry.getValue()).matches(written, racine)) {
+                return new ValidationResult(true, root, new Scheme(entry.getKey() + typeSuffix, entry.getValue()));
+            }
+        }
+        for (Scheme scheme : schemes.getAllSchemes()) {
+            if (scheme.getCompiled().matches(written, racine)) {
+                return new ValidationResult(true, root, scheme);
+            }
+        }
         return result;
     }
 
@@ -42,25 +210,54 @@ public class MorphologyEngine {
     // Vérifier si un mot correspond à une racine
 
     public ValidationResult validate(String word, Root root, HashTableSchemes schemes) {
-        Map<String, String> availableSchemes = root.getAvailableSchemes();
+        if (Metrics.ENABLED) {
+            long start = System.nanoTime();
+            ValidationResult result = validateWritten(word, root, schemes);
+            Metrics.VALIDATE.record(System.nanoTime() - start);
+            return result;
+        }
+        return validateWritten(word, root, schemes);
+    }
 
-        for (Map.Entry<String, String> entry : availableSchemes.entrySet()) {
-            String generated = generateFromPattern(root, entry.getValue());
-            if (generated.equals(word)) {
-                Scheme scheme = new Scheme(entry.getKey() + " (déduit du type: " + root.getType() + ")", entry.getValue());
-                return new ValidationResult(true, root, scheme);
-            }
+    private ValidationResult validateWritten(String word, Root root, HashTableSchemes schemes) {
+        ValidationResult result = validateCached(normalize(word), root, schemes);
+        String suffix = root == null ? "" : " (déduit du type: " + root.getType() + ")";
+        return asWritten(word, result, schemes, suffix);
+    }
+
+    private ValidationResult validateCached(String word, Root root, HashTableSchemes schemes) {
+        ResultCache c = cache;
+        if (c != null && word != null && root != null && c.covers(schemes) && c.isCurrent()) {
+            return c.validate(word, root, () -> validateUncached(word, root, schemes));
         }
+        return validateUncached(word, root, schemes);
+    }
 
-        List<Scheme> allSchemes = schemes.getAllSchemes();
-        for (Scheme scheme : allSchemes) {
-            String generated = generateFromPattern(root, scheme.getPattern());
-            if (generated.equals(word)) {
-                return new ValidationResult(true, root, scheme);
+    private ValidationResult validateUncached(String word, Root root, HashTableSchemes schemes) {
+        // Forme absente du filtre : aucune correspondance exacte possible
+        FormFilter f = filter;
+        boolean exactPossible = f == null || word == null || !f.covers(root, schemes) || !f.isCurrent()
+                || f.mightContain(word);
+
+        if (exactPossible) {
+            Map<String, String> availableSchemes = root.getAvailableSchemes();
+
+            for (Map.Entry<String, String> entry : availableSchemes.entrySet()) {
+                if (matchesPattern(word, root, CompiledPattern.of(entry.getValue()))) {
+                    Scheme scheme = new Scheme(entry.getKey() + " (déduit du type: " + root.getType() + ")", entry.getValue());
+                    return new ValidationResult(true, root, scheme);
+                }
+            }
+
+            List<Scheme> allSchemes = schemes.getAllSchemes();
+            for (Scheme scheme : allSchemes) {
+                if (matchesPattern(word, root, scheme.getCompiled())) {
+                    return new ValidationResult(true, root, scheme);
+                }
             }
         }
 
-        if (containsRootLettersInOrder(word, root)) {
+        if (heuristicFallback && containsRootLettersInOrder(word, root)) {
             String detectedPattern = extractPattern(word, root);
             String deducedName = deduceSchemeNameFromPattern(detectedPattern, word, root.getType());
             Scheme deducedScheme = new Scheme(deducedName, detectedPattern);
@@ -72,7 +269,7 @@ public class MorphologyEngine {
 
 
     // Vérifie si les 3 lettres apparaissent dans l'ordre dans le mot
-    private boolean containsRootLettersInOrder(String word, Root root) {
+    static boolean containsRootLettersInOrder(String word, Root root) {
         String racine = root.getValue();
         if (racine == null || racine.length() != 3 || word == null || word.isEmpty()) {
             return false;
@@ -177,38 +374,244 @@ public class MorphologyEngine {
 
     // Analyse complète d'un mot pour trouver sa racine et son schème
     public ValidationResult decomposeWord(String word, AVLTree tree, HashTableSchemes schemes) {
+        if (Metrics.ENABLED) {
+            long start = System.nanoTime();
+            ValidationResult result = asWritten(word, decomposeCached(normalize(word), tree, schemes), schemes, " (déduit)");
+            Metrics.DECOMPOSE.record(System.nanoTime() - start);
+            return result;
+        }
+        return asWritten(word, decomposeCached(normalize(word), tree, schemes), schemes, " (déduit)");
+    }
+
+    private ValidationResult decomposeCached(String word, AVLTree tree, HashTableSchemes schemes) {
         if (word == null || word.isEmpty()) {
             return new ValidationResult(false, null, null);
         }
 
-        List<Root> allRoots = tree.getAllRoots();
+        ResultCache c = cache;
+        if (c != null && c.covers(tree, schemes) && c.isCurrent()) {
+            return c.decompose(word, () -> decomposeUncached(word, tree, schemes));
+        }
+        return decomposeUncached(word, tree, schemes);
+    }
 
-        for (Root root : allRoots) {
-            Map<String, String> availableSchemes = root.getAvailableSchemes();
+    private ValidationResult decomposeUncached(String word, AVLTree tree, HashTableSchemes schemes) {
+        // Forme absente du filtre : il ne reste que la déduction par l'ordre
+        // des lettres, cherchée à partir des lettres du mot (deduceBefore)
+        FormFilter f = filter;
+        if (f != null && f.covers(tree, schemes) && f.isCurrent() && !f.mightContain(word)) {
+            return orInvalid(deduceBefore(word, tree, null));
+        }
 
-            for (Map.Entry<String, String> entry : availableSchemes.entrySet()) {
-                String generated = generateFromPattern(root, entry.getValue());
-                if (generated.equals(word)) {
-                    Scheme scheme = new Scheme(entry.getKey() + " (déduit)", entry.getValue());
-                    return new ValidationResult(true, root, scheme);
-                }
+        // Avec l'index, la correspondance exacte est une simple recherche ;
+        // une déduction sur une racine antérieure passe avant, comme dans le parcours.
+        // Index, automate, filtre et cache en retard sur la table sont ignorés
+        DerivationIndex idx = index;
+        if (idx != null && idx.covers(tree, schemes) && idx.isCurrent()) {
+            return firstInTreeOrder(word, tree, idx.lookup(word));
+        }
+
+        // Avec l'automate, les racines candidates sont lues directement dans le mot
+        PatternMatcher m = matcher;
+        if (m != null && m.covers(schemes) && m.isCurrent()) {
+            return firstInTreeOrder(word, tree, m.match(word, tree));
+        }
+
+        List<Scheme> allSchemes = schemes.getAllSchemes();
+        for (Root root : tree.getAllRoots()) {
+            ValidationResult result = analyzeRoot(word, root, allSchemes);
+            if (result != null) {
+                return result;
             }
+        }
 
-            for (Scheme scheme : schemes.getAllSchemes()) {
-                String generated = generateFromPattern(root, scheme.getPattern());
-                if (generated.equals(word)) {
-                    return new ValidationResult(true, root, scheme);
+        return new ValidationResult(false, null, null);
+    }
+
+    // Première analyse du mot pour une racine donnée, null si aucune
+    ValidationResult analyzeRoot(String word, Root root, List<Scheme> allSchemes) {
+        for (Map.Entry<String, String> entry : root.getAvailableSchemes().entrySet()) {
+            if (matchesPattern(word, root, CompiledPattern.of(entry.getValue()))) {
+                Scheme scheme = new Scheme(entry.getKey() + " (déduit)", entry.getValue());
+                return new ValidationResult(true, root, scheme);
+            }
+        }
+
+        for (Scheme scheme : allSchemes) {
+            if (matchesPattern(word, root, scheme.getCompiled())) {
+                return new ValidationResult(true, root, scheme);
+            }
+        }
+
+        if (heuristicFallback && containsRootLettersInOrder(word, root)) {
+            String detectedPattern = extractPattern(word, root);
+            String deducedName = deduceSchemeNameFromPattern(detectedPattern, word, root.getType());
+            return new ValidationResult(true, root, new Scheme(deducedName, detectedPattern));
+        }
+        return null;
+    }
+
+    // Toutes les analyses exactes du mot pour une racine ; la déduction
+    // par l'ordre des lettres n'est ajoutée que s'il n'y en a aucune
+    void analyzeRootAll(String word, Root root, List<Scheme> allSchemes, List<ValidationResult> out) {
+        int before = out.size();
+
+        for (Map.Entry<String, String> entry : root.getAvailableSchemes().entrySet()) {
+            if (matchesPattern(word, root, CompiledPattern.of(entry.getValue()))) {
+                Scheme scheme = new Scheme(entry.getKey() + " (déduit)", entry.getValue());
+                out.add(new ValidationResult(true, root, scheme));
+            }
+        }
+
+        for (Scheme scheme : allSchemes) {
+            if (matchesPattern(word, root, scheme.getCompiled())) {
+                out.add(new ValidationResult(true, root, scheme));
+            }
+        }
+
+        if (out.size() == before && heuristicFallback && containsRootLettersInOrder(word, root)) {
+            String detectedPattern = extractPattern(word, root);
+            String deducedName = deduceSchemeNameFromPattern(detectedPattern, word, root.getType());
+            out.add(new ValidationResult(true, root, new Scheme(deducedName, detectedPattern)));
+        }
+    }
+
+    // ========== DÉCOMPOSITION PARALLÈLE ==========
+
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    // En dessous de ce nombre de racines, le parcours reste séquentiel
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    // Même résultat que le parcours séquentiel, réparti sur les sous-arbres
+    public ValidationResult decomposeWordParallel(String word, AVLTree tree, HashTableSchemes schemes) {
+        String normalized = normalize(word);
+        if (normalized == null || normalized.isEmpty()) {
+            return new ValidationResult(false, null, null);
+        }
+
+        List<Scheme> allSchemes = schemes.getAllSchemes();
+        ValidationResult result;
+        if (tree.getCount() < parallelThreshold) {
+            result = null;
+            for (Root root : tree.getAllRoots()) {
+                result = analyzeRoot(normalized, root, allSchemes);
+                if (result != null) break;
+            }
+        } else {
+            result = ForkJoinPool.commonPool().invoke(
+                    new ParallelDecomposer.FirstMatch(this, normalized, allSchemes, tree.getRootNode()));
+        }
+        return asWritten(word, orInvalid(result), schemes, " (déduit)");
+    }
+
+    // Toutes les analyses du mot sans diacritiques, racine par racine dans
+    // l'ordre de l'arbre
+    public List<ValidationResult> decomposeAll(String word, AVLTree tree, HashTableSchemes schemes) {
+        word = normalize(word);
+        if (word == null || word.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Scheme> allSchemes = schemes.getAllSchemes();
+        if (tree.getCount() < parallelThreshold) {
+            List<ValidationResult> results = new ArrayList<>();
+            for (Root root : tree.getAllRoots()) {
+                analyzeRootAll(word, root, allSchemes, results);
+            }
+            return results;
+        }
+        return ForkJoinPool.commonPool().invoke(
+                new ParallelDecomposer.AllMatches(this, word, allSchemes, tree.getRootNode()));
+    }
+
+    // Le parcours séquentiel s'arrête sur la première racine qui donne une
+    // analyse, exacte ou déduite : la correspondance exacte (première racine
+    // exacte, null si aucune) ne l'emporte que si aucune racine antérieure
+    // ne se déduit de l'ordre des lettres
+    private ValidationResult firstInTreeOrder(String word, AVLTree tree, ValidationResult exact) {
+        ValidationResult deduced = deduceBefore(word, tree, exact != null ? exact.getRoot() : null);
+        if (deduced != null) {
+            return deduced;
+        }
+        return orInvalid(exact);
+    }
+
+    // Déduction par l'ordre des lettres sur la première racine strictement
+    // avant bound (tout l'arbre si bound est null) ; null si aucune
+    private ValidationResult deduceBefore(String word, AVLTree tree, Root bound) {
+        if (!heuristicFallback || word == null) {
+            return null;
+        }
+
+        // Les racines déductibles sont les triplets de lettres du mot pris
+        // dans l'ordre : C(n,3) recherches dans l'arbre au lieu d'un parcours,
+        // sauf pour un mot très long face à un petit lexique
+        long n = word.length();
+        Root first = n * (n - 1) * (n - 2) / 6 <= tree.getCount()
+                ? firstRootInWord(word, tree, bound)
+                : firstRootByScan(word, tree, bound);
+        if (first == null) {
+            return null;
+        }
+
+        String detectedPattern = extractPattern(word, first);
+        String deducedName = deduceSchemeNameFromPattern(detectedPattern, word, first.getType());
+        return new ValidationResult(true, first, new Scheme(deducedName, detectedPattern));
+    }
+
+    // Plus petite racine de l'arbre formée de trois lettres du mot dans l'ordre
+    private static Root firstRootInWord(String word, AVLTree tree, Root bound) {
+        String best = bound != null ? bound.getLetters() : null;
+        Root found = null;
+        char[] key = new char[3];
+
+        for (int i = 0; i < word.length(); i++) {
+            key[0] = word.charAt(i);
+            for (int j = i + 1; j < word.length(); j++) {
+                key[1] = word.charAt(j);
+                for (int k = j + 1; k < word.length(); k++) {
+                    key[2] = word.charAt(k);
+                    String letters = new String(key);
+                    if (best != null && letters.compareTo(best) >= 0) continue;
+
+                    Node node = tree.search(letters);
+                    if (node != null) {
+                        found = node.getRoot();
+                        best = letters;
+                    }
                 }
             }
+        }
+        return found;
+    }
 
+    private Root firstRootByScan(String word, AVLTree tree, Root bound) {
+        ArrayDeque<Node> stack = new ArrayDeque<>();
+        Node node = tree.getRootNode();
+        while (node != null || !stack.isEmpty()) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+            node = stack.pop();
+            Root root = node.getRoot();
+            if (bound != null && root.compareTo(bound) >= 0) {
+                return null;
+            }
             if (containsRootLettersInOrder(word, root)) {
-                String detectedPattern = extractPattern(word, root);
-                String deducedName = deduceSchemeNameFromPattern(detectedPattern, word, root.getType());
-                Scheme deducedScheme = new Scheme(deducedName, detectedPattern);
-                return new ValidationResult(true, root, deducedScheme);
+                return root;
             }
+            node = node.right;
         }
+        return null;
+    }
 
-        return new ValidationResult(false, null, null);
+    private static ValidationResult orInvalid(ValidationResult result) {
+        return result != null ? result : new ValidationResult(false, null, null);
     }
-}
\ No newline at end of file
+}
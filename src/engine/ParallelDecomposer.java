@@ -0,0 +1,124 @@
+package engine;
+
+import models.Node;
+import models.Scheme;
+import models.ValidationResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Tâches fork/join pour la décomposition d'un mot sur tout l'arbre AVL.
+ * L'arbre étant équilibré, chaque sous-arbre gauche/droit représente
+ * environ la moitié du travail. Les résultats sont recombinés dans
+ * l'ordre infixe pour rester identiques au parcours séquentiel.
+ */
+final class ParallelDecomposer {
+
+    // Un sous-arbre de cette hauteur (au plus 2^8 - 1 racines) est traité sur place
+    private static final int SEQUENTIAL_HEIGHT = 8;
+
+    private ParallelDecomposer() {
+    }
+
+    // Première analyse dans l'ordre infixe, null si aucune
+    // (RecursiveTask est Serializable, mais ces tâches ne sont jamais sérialisées)
+    @SuppressWarnings("serial")
+    static final class FirstMatch extends RecursiveTask<ValidationResult> {
+        private final MorphologyEngine engine;
+        private final String word;
+        private final List<Scheme> schemes;
+        private final Node node;
+
+        FirstMatch(MorphologyEngine engine, String word, List<Scheme> schemes, Node node) {
+            this.engine = engine;
+            this.word = word;
+            this.schemes = schemes;
+            this.node = node;
+        }
+
+        @Override
+        protected ValidationResult compute() {
+            if (node == null) {
+                return null;
+            }
+            if (node.getHeight() <= SEQUENTIAL_HEIGHT) {
+                return scan(node);
+            }
+
+            FirstMatch left = new FirstMatch(engine, word, schemes, node.left);
+            left.fork();
+
+            ValidationResult own = engine.analyzeRoot(word, node.getRoot(), schemes);
+            ValidationResult right = own == null
+                    ? new FirstMatch(engine, word, schemes, node.right).compute()
+                    : null;
+
+            ValidationResult leftResult = left.join();
+            if (leftResult != null) {
+                return leftResult;
+            }
+            return own != null ? own : right;
+        }
+
+        private ValidationResult scan(Node n) {
+            if (n == null) return null;
+
+            ValidationResult result = scan(n.left);
+            if (result != null) return result;
+
+            result = engine.analyzeRoot(word, n.getRoot(), schemes);
+            if (result != null) return result;
+
+            return scan(n.right);
+        }
+    }
+
+    // Toutes les analyses, concaténées dans l'ordre infixe
+    @SuppressWarnings("serial")
+    static final class AllMatches extends RecursiveTask<List<ValidationResult>> {
+        private final MorphologyEngine engine;
+        private final String word;
+        private final List<Scheme> schemes;
+        private final Node node;
+
+        AllMatches(MorphologyEngine engine, String word, List<Scheme> schemes, Node node) {
+            this.engine = engine;
+            this.word = word;
+            this.schemes = schemes;
+            this.node = node;
+        }
+
+        @Override
+        protected List<ValidationResult> compute() {
+            List<ValidationResult> results = new ArrayList<>();
+            if (node == null) {
+                return results;
+            }
+            if (node.getHeight() <= SEQUENTIAL_HEIGHT) {
+                scan(node, results);
+                return results;
+            }
+
+            AllMatches left = new AllMatches(engine, word, schemes, node.left);
+            left.fork();
+
+            List<ValidationResult> own = new ArrayList<>();
+            engine.analyzeRootAll(word, node.getRoot(), schemes, own);
+            List<ValidationResult> right = new AllMatches(engine, word, schemes, node.right).compute();
+
+            results.addAll(left.join());
+            results.addAll(own);
+            results.addAll(right);
+            return results;
+        }
+
+        private void scan(Node n, List<ValidationResult> out) {
+            if (n == null) return;
+            scan(n.left, out);
+            engine.analyzeRootAll(word, n.getRoot(), schemes, out);
+            scan(n.right, out);
+        }
+    }
+}
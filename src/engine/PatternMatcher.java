@@ -0,0 +1,241 @@
+package engine;
+
+import models.CompiledPattern;
+import models.Node;
+import models.Root;
+import models.Scheme;
+import models.ValidationResult;
+import structures.AVLTree;
+import structures.HashTableSchemes;
+import structures.LexiconListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Automate de reconnaissance des schèmes.
+ * Tous les patterns (table globale + tables par type de racine) sont
+ * compilés, sans diacritiques, dans un seul arbre de préfixes où C1, C2
+ * et C3 sont des cases de capture. Un seul passage sur le mot donne tous
+ * les triplets (C1, C2, C3, schème) candidats, confirmés ensuite dans
+ * l'arbre AVL.
+ * Le coût dépend de la longueur du mot et du nombre de schèmes,
+ * pas du nombre de racines.
+ */
+public class PatternMatcher implements LexiconListener {
+
+    // Lettres essayées pour une case absente du pattern (ex: "و+C2+C3")
+    private static final char FIRST_LETTER = 'ء';
+    private static final char LAST_LETTER = 'ي';
+
+    private static final class Entry {
+        final Scheme scheme;
+        final String type;
+        final int order;
+
+        Entry(Scheme scheme, String type, int order) {
+            this.scheme = scheme;
+            this.type = type;
+            this.order = order;
+        }
+    }
+
+    private static final class State {
+        final Map<Character, State> literals = new HashMap<>();
+        final State[] slots = new State[3];
+        final List<Entry> accepting = new ArrayList<>(1);
+    }
+
+    private static final class Candidate {
+        final Root root;
+        final Entry entry;
+
+        Candidate(Root root, Entry entry) {
+            this.root = root;
+            this.entry = entry;
+        }
+    }
+
+    private final HashTableSchemes schemes;
+    private volatile State start;
+    // Version de la table des schèmes que reflète l'automate
+    private volatile int schemesVersion = -1;
+
+
+    public PatternMatcher(HashTableSchemes schemes) {
+        this.schemes = schemes;
+    }
+
+    public void attach() {
+        schemes.addListener(this);
+    }
+
+    public void detach() {
+        schemes.removeListener(this);
+    }
+
+    public boolean covers(HashTableSchemes schemes) {
+        return this.schemes == schemes;
+    }
+
+    // Faux pendant qu'une modification de la table n'est pas encore reportée
+    public boolean isCurrent() {
+        return schemesVersion == schemes.getVersion();
+    }
+
+    // ========== COMPILATION ==========
+
+    private State compile(List<Scheme> allSchemes) {
+        State root = new State();
+        int order = 0;
+
+        // Les schèmes du type passent avant la table globale, comme dans validate
+        for (String type : Root.TYPES) {
+            for (Map.Entry<String, String> e : Root.schemesForType(type).entrySet()) {
+                Scheme scheme = new Scheme(e.getKey() + " (déduit)", e.getValue());
+                add(root, CompiledPattern.of(e.getValue()).normalized(), new Entry(scheme, type, order++));
+            }
+        }
+        for (Scheme scheme : allSchemes) {
+            add(root, scheme.getCompiled().normalized(), new Entry(scheme, null, order++));
+        }
+        return root;
+    }
+
+    private void add(State root, CompiledPattern pattern, Entry entry) {
+        State state = root;
+        int slot = 0;
+        for (int pos = 0; pos < pattern.length(); pos++) {
+            if (slot < pattern.getSlotCount() && pattern.getSlotPosition(slot) == pos) {
+                int letter = pattern.getSlotLetter(slot++);
+                if (state.slots[letter] == null) {
+                    state.slots[letter] = new State();
+                }
+                state = state.slots[letter];
+            } else {
+                state = state.literals.computeIfAbsent(pattern.literalAt(pos), c -> new State());
+            }
+        }
+        state.accepting.add(entry);
+    }
+
+    // L'automate est compilé en entier (quelques dizaines de schèmes) puis
+    // publié d'un seul coup, à chaque modification de la table globale.
+    // Premier appel après attach : une écriture concurrente le recompile
+    // ensuite, schemesVersion ne peut pas rester en retard
+    public synchronized void build() {
+        int version = schemes.getVersion();
+        start = compile(schemes.getAllSchemes());
+        schemesVersion = version;
+    }
+
+    @Override
+    public void schemeInserted(Scheme scheme) {
+        build();
+    }
+
+    @Override
+    public void schemeModified(Scheme oldScheme, Scheme newScheme) {
+        build();
+    }
+
+    @Override
+    public void schemeDeleted(Scheme scheme) {
+        build();
+    }
+
+    // Rechargement : automate compilé sur la nouvelle liste avant la
+    // publication de la table, publié juste après elle
+    @Override
+    public synchronized Runnable prepareSchemesReplaced(List<Scheme> oldSchemes, List<Scheme> newSchemes) {
+        State compiled = compile(newSchemes);
+        return () -> {
+            start = compiled;
+            schemesVersion = schemes.getVersion();
+        };
+    }
+
+    // ========== RECONNAISSANCE ==========
+
+    public List<DerivationIndex.Analysis> matchAll(String word, AVLTree tree) {
+        List<Candidate> found = new ArrayList<>();
+        if (word != null && !word.isEmpty()) {
+            char[] captured = new char[3];
+            walk(start, word, 0, captured, tree, found);
+        }
+
+        found.sort((a, b) -> {
+            int cmp = a.root.compareTo(b.root);
+            return cmp != 0 ? cmp : Integer.compare(a.entry.order, b.entry.order);
+        });
+
+        List<DerivationIndex.Analysis> result = new ArrayList<>(found.size());
+        for (Candidate c : found) {
+            result.add(new DerivationIndex.Analysis(c.root, c.entry.scheme, c.entry.type != null));
+        }
+        return result;
+    }
+
+    // Première correspondance exacte dans l'ordre de l'arbre, null si aucune ;
+    // une déduction sur une racine antérieure reste à vérifier par l'appelant
+    public ValidationResult match(String word, AVLTree tree) {
+        List<DerivationIndex.Analysis> all = matchAll(word, tree);
+        return all.isEmpty() ? null : all.get(0).toResult();
+    }
+
+    private void walk(State state, String word, int pos, char[] captured, AVLTree tree, List<Candidate> found) {
+        if (pos == word.length()) {
+            if (!state.accepting.isEmpty()) {
+                confirm(state, captured, 0, tree, found);
+            }
+            return;
+        }
+
+        char c = word.charAt(pos);
+
+        State next = state.literals.get(c);
+        if (next != null) {
+            walk(next, word, pos + 1, captured, tree, found);
+        }
+
+        for (int letter = 0; letter < 3; letter++) {
+            State slot = state.slots[letter];
+            if (slot == null) continue;
+
+            char previous = captured[letter];
+            if (previous != 0 && previous != c) continue;
+
+            captured[letter] = c;
+            walk(slot, word, pos + 1, captured, tree, found);
+            captured[letter] = previous;
+        }
+    }
+
+    // Complète les cases absentes du pattern puis vérifie la racine dans l'arbre
+    private void confirm(State state, char[] captured, int letter, AVLTree tree, List<Candidate> found) {
+        if (letter < 3 && captured[letter] == 0) {
+            for (char c = FIRST_LETTER; c <= LAST_LETTER; c++) {
+                captured[letter] = c;
+                confirm(state, captured, letter + 1, tree, found);
+            }
+            captured[letter] = 0;
+            return;
+        }
+        if (letter < 3) {
+            confirm(state, captured, letter + 1, tree, found);
+            return;
+        }
+
+        Node node = tree.search(new String(captured));
+        if (node == null) return;
+
+        Root root = node.getRoot();
+        for (Entry entry : state.accepting) {
+            if (entry.type == null || entry.type.equals(root.getType())) {
+                found.add(new Candidate(root, entry));
+            }
+        }
+    }
+}
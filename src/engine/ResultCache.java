@@ -0,0 +1,291 @@
+package engine;
+
+import models.CompiledPattern;
+import models.Root;
+import models.Scheme;
+import models.ValidationResult;
+import structures.AVLTree;
+import structures.HashTableSchemes;
+import structures.LexiconListener;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Cache borné des résultats de decomposeWord (clé : mot) et de validate
+ * (clé : mot + racine). Chaque table est découpée en segments LRU
+ * (LinkedHashMap en ordre d'accès) protégés chacun par leur verrou.
+ *
+ * Invalidation, par notification du lexique :
+ *   - ajout de racine : seules les décompositions des mots que la nouvelle
+ *     racine pourrait analyser, c'est-à-dire une de ses formes ou un mot qui
+ *     contient ses lettres dans l'ordre (déduction). Les autres résultats,
+ *     positifs ou négatifs, ne changent pas. validate reçoit la racine : sa
+ *     table n'est pas touchée. Un gros lot de racines vide les décompositions ;
+ *   - ajout / modification / suppression de schème : les deux tables.
+ * Un compteur de génération empêche qu'un résultat calculé avant une
+ * invalidation soit rangé après elle.
+ */
+public class ResultCache implements LexiconListener {
+
+    private static final int SHARDS = 16;
+    // Au-delà, un lot de racines vide les décompositions : comparer chaque
+    // mot à toutes les racines coûterait plus que de les recalculer
+    private static final int MAX_PRECISE_ROOTS = 64;
+
+    private final AVLTree tree;
+    private final HashTableSchemes schemes;
+    private final Table decompositions;
+    private final Table validations;
+    // Version de la table des schèmes depuis la dernière invalidation
+    private volatile int schemesVersion;
+
+
+    public ResultCache(AVLTree tree, HashTableSchemes schemes, int capacity) {
+        this.tree = tree;
+        this.schemes = schemes;
+        this.decompositions = new Table(capacity);
+        this.validations = new Table(capacity);
+        this.schemesVersion = schemes.getVersion();
+    }
+
+    public void attach() {
+        tree.addListener(this);
+        schemes.addListener(this);
+    }
+
+    public void detach() {
+        tree.removeListener(this);
+        schemes.removeListener(this);
+    }
+
+    public boolean covers(AVLTree tree, HashTableSchemes schemes) {
+        return this.tree == tree && this.schemes == schemes;
+    }
+
+    public boolean covers(HashTableSchemes schemes) {
+        return this.schemes == schemes;
+    }
+
+    // Faux entre une modification de la table et l'invalidation qui la suit
+    public boolean isCurrent() {
+        return schemesVersion == schemes.getVersion();
+    }
+
+    // ========== ACCÈS ==========
+
+    public ValidationResult decompose(String word, Supplier<ValidationResult> compute) {
+        return decompositions.get(word, compute);
+    }
+
+    // Le type fait partie de la clé : deux objets Root de mêmes lettres peuvent différer
+    public ValidationResult validate(String word, Root root, Supplier<ValidationResult> compute) {
+        String key = word + '\u0000' + root.getLetters() + '\u0000' + root.getType();
+        return validations.get(key, compute);
+    }
+
+    public void clear() {
+        decompositions.invalidate();
+        validations.invalidate();
+    }
+
+    // ========== STATISTIQUES ==========
+
+    public long getHits() {
+        return decompositions.hits.sum() + validations.hits.sum();
+    }
+
+    public long getMisses() {
+        return decompositions.misses.sum() + validations.misses.sum();
+    }
+
+    public double getHitRate() {
+        long hits = getHits();
+        long total = hits + getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public int size() {
+        return decompositions.size() + validations.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Cache: %d entrées, %d succès / %d échecs (%.1f%%)",
+                size(), getHits(), getMisses(), getHitRate() * 100);
+    }
+
+    // ========== NOTIFICATIONS ==========
+
+    @Override
+    public void rootInserted(Root root) {
+        rootsInserted(List.of(root));
+    }
+
+    @Override
+    public void rootsInserted(List<Root> roots) {
+        if (roots.size() > MAX_PRECISE_ROOTS) {
+            decompositions.invalidate();
+            return;
+        }
+
+        // Formes (sans diacritiques, comme les clés) des nouvelles racines
+        List<Root> added = new ArrayList<>(roots.size());
+        Set<String> forms = new HashSet<>();
+        List<Scheme> allSchemes = schemes.getAllSchemes();
+        for (Root root : roots) {
+            String letters = root.getValue();
+            if (letters == null || letters.length() != 3) {
+                continue;
+            }
+            added.add(root);
+            for (String pattern : root.getAvailableSchemes().values()) {
+                forms.add(CompiledPattern.of(pattern).normalized().fill(letters));
+            }
+            for (Scheme scheme : allSchemes) {
+                forms.add(scheme.getCompiled().normalized().fill(letters));
+            }
+        }
+        if (added.isEmpty()) {
+            return;
+        }
+
+        // Une déduction sur la nouvelle racine peut passer avant une
+        // correspondance exacte sur une racine suivante
+        decompositions.invalidateIf(word -> {
+            if (forms.contains(word)) {
+                return true;
+            }
+            for (Root root : added) {
+                if (MorphologyEngine.containsRootLettersInOrder(word, root)) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    @Override
+    public void schemeInserted(Scheme scheme) {
+        schemesChanged();
+    }
+
+    @Override
+    public void schemeModified(Scheme oldScheme, Scheme newScheme) {
+        schemesChanged();
+    }
+
+    @Override
+    public void schemeDeleted(Scheme scheme) {
+        schemesChanged();
+    }
+
+    @Override
+    public void schemesReplaced(List<Scheme> oldSchemes, List<Scheme> newSchemes) {
+        schemesChanged();
+    }
+
+    private void schemesChanged() {
+        clear();
+        schemesVersion = schemes.getVersion();
+    }
+
+    // ========== TABLE SEGMENTÉE ==========
+
+    private static final class Table {
+        private final Shard[] shards = new Shard[SHARDS];
+        private final AtomicLong generation = new AtomicLong();
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+
+        Table(int capacity) {
+            int perShard = Math.max(1, capacity / SHARDS);
+            for (int i = 0; i < SHARDS; i++) {
+                shards[i] = new Shard(perShard);
+            }
+        }
+
+        private Shard shardFor(String key) {
+            int h = key.hashCode();
+            return shards[(h ^ (h >>> 16)) & (SHARDS - 1)];
+        }
+
+        // Le calcul se fait hors verrou : deux threads peuvent calculer le même
+        // mot en même temps, le résultat est identique
+        ValidationResult get(String key, Supplier<ValidationResult> compute) {
+            Shard shard = shardFor(key);
+            ValidationResult cached;
+            synchronized (shard) {
+                cached = shard.get(key);
+            }
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+
+            misses.increment();
+            long observed = generation.get();
+            ValidationResult result = compute.get();
+            synchronized (shard) {
+                if (generation.get() == observed) {
+                    shard.put(key, result);
+                }
+            }
+            return result;
+        }
+
+        // Génération incrémentée avant de vider : un calcul en cours ne sera pas rangé
+        void invalidate() {
+            generation.incrementAndGet();
+            for (Shard shard : shards) {
+                synchronized (shard) {
+                    shard.clear();
+                }
+            }
+        }
+
+        // Seules les clés retenues sont retirées
+        void invalidateIf(Predicate<String> affected) {
+            generation.incrementAndGet();
+            for (Shard shard : shards) {
+                synchronized (shard) {
+                    shard.keySet().removeIf(affected);
+                }
+            }
+        }
+
+        int size() {
+            int size = 0;
+            for (Shard shard : shards) {
+                synchronized (shard) {
+                    size += shard.size();
+                }
+            }
+            return size;
+        }
+    }
+
+    private static final class Shard extends LinkedHashMap<String, ValidationResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Shard(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ValidationResult> eldest) {
+            return size() > capacity;
+        }
+    }
+}
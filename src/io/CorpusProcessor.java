@@ -0,0 +1,182 @@
+package io;
+
+import engine.MorphologyEngine;
+import models.ValidationResult;
+import structures.AVLTree;
+import structures.HashTableSchemes;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Traitement par lots d'un corpus UTF-8 (un mot ou une phrase par ligne).
+ * Chaque ligne est découpée en mots, chaque mot est décomposé par le
+ * moteur (qui ignore les diacritiques) sur un pool de threads borné, et
+ * les résultats sont écrits au fil de l'eau dans l'ordre du fichier
+ * d'entrée.
+ * Les lignes en cours de traitement sont bornées en nombre et en taille
+ * cumulée : la mémoire utilisée ne dépend pas de la taille du corpus, seule
+ * la plus longue ligne doit tenir en mémoire (elle est lue d'un bloc).
+ *
+ * Format de sortie (une ligne par mot, séparée par des tabulations) :
+ * numéro de ligne, mot, racine, schème, pattern  (ou "-" si non reconnu)
+ */
+public class CorpusProcessor {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    // Nombre de lignes en attente par thread de travail
+    private static final int LINES_PER_WORKER = 64;
+    // Taille cumulée maximale (en caractères) des lignes en attente
+    private static final long MAX_PENDING_CHARS = 1L << 22;
+
+    private final MorphologyEngine engine;
+    private final AVLTree tree;
+    private final HashTableSchemes schemes;
+    private final int threads;
+
+    private long lines;
+    private long tokens;
+    private long recognized;
+
+
+    public CorpusProcessor(MorphologyEngine engine, AVLTree tree, HashTableSchemes schemes, int threads) {
+        this.engine = engine;
+        this.tree = tree;
+        this.schemes = schemes;
+        this.threads = Math.max(1, threads);
+    }
+
+    // ========== TRAITEMENT ==========
+
+    public void process(Path input, Path output) throws IOException {
+        lines = 0;
+        tokens = 0;
+        recognized = 0;
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        ArrayDeque<Future<LineResult>> pending = new ArrayDeque<>();
+        ArrayDeque<Integer> pendingLengths = new ArrayDeque<>();
+        long pendingChars = 0;
+        int window = threads * LINES_PER_WORKER;
+
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(input), StandardCharsets.UTF_8), BUFFER_SIZE);
+             BufferedWriter out = new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(output), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+
+            String line;
+            long lineNumber = 0;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                final String text = line;
+                final long number = lineNumber;
+                pending.add(pool.submit(() -> analyzeLine(number, text)));
+                pendingLengths.add(text.length());
+                pendingChars += text.length();
+
+                // Fenêtre pleine (en lignes ou en caractères) : on écrit les résultats
+                // les plus anciens avant de lire plus loin
+                while (!pending.isEmpty() && (pending.size() >= window || pendingChars > MAX_PENDING_CHARS)) {
+                    write(pending.poll(), out);
+                    pendingChars -= pendingLengths.poll();
+                }
+            }
+
+            while (!pending.isEmpty()) {
+                write(pending.poll(), out);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static final class LineResult {
+        final String text;
+        final int tokens;
+        final int recognized;
+
+        LineResult(String text, int tokens, int recognized) {
+            this.text = text;
+            this.tokens = tokens;
+            this.recognized = recognized;
+        }
+    }
+
+    private LineResult analyzeLine(long number, String line) {
+        StringBuilder sb = new StringBuilder();
+        int count = 0;
+        int found = 0;
+
+        int i = 0;
+        int length = line.length();
+        while (i < length) {
+            while (i < length && !Character.isLetter(line.charAt(i))) i++;
+            int start = i;
+            while (i < length && !Character.isWhitespace(line.charAt(i))) i++;
+            int end = i;
+            while (end > start && !Character.isLetter(line.charAt(end - 1))) end--;
+            if (end <= start) continue;
+
+            // Tel qu'écrit : les harakat départagent les schèmes qui ne diffèrent que par eux
+            String word = line.substring(start, end);
+            ValidationResult result = engine.decomposeWord(word, tree, schemes);
+            count++;
+
+            // Le mot est écrit tel qu'il apparaît dans le corpus
+            sb.append(number).append('\t').append(line, start, end).append('\t');
+            if (result.isValid()) {
+                found++;
+                sb.append(result.getRoot().getLetters()).append('\t')
+                        .append(result.getScheme().getName()).append('\t')
+                        .append(result.getScheme().getPattern());
+            } else {
+                sb.append('-');
+            }
+            sb.append('\n');
+        }
+
+        return new LineResult(sb.toString(), count, found);
+    }
+
+    private void write(Future<LineResult> future, BufferedWriter out) throws IOException {
+        LineResult result;
+        try {
+            result = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Traitement interrompu", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Erreur d'analyse: " + e.getCause(), e.getCause());
+        }
+
+        out.write(result.text);
+        lines++;
+        tokens += result.tokens;
+        recognized += result.recognized;
+    }
+
+    // ========== STATISTIQUES ==========
+
+    public long getLines() {
+        return lines;
+    }
+
+    public long getTokens() {
+        return tokens;
+    }
+
+    public long getRecognized() {
+        return recognized;
+    }
+}
@@ -0,0 +1,298 @@
+package io;
+
+import models.Node;
+import models.Root;
+import structures.AVLTree;
+import structures.HashTableSchemes;
+import utils.Metrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Journal en ajout seul des dérivés validés (racine, mot).
+ *
+ * append ne fait que déposer l'entrée dans une file : un thread d'écriture
+ * vide la file par lots et ne fait qu'un fsync par lot (validation groupée).
+ * Aucune validation n'attend donc le disque ; en cas d'arrêt brutal, seul
+ * le lot en cours peut être perdu.
+ *
+ * Au démarrage, le journal est rejoué sur l'arbre chargé. Quand il dépasse
+ * COMPACT_THRESHOLD octets, il est compacté : le fichier courant est mis de
+ * côté (.old), un instantané complet est écrit (voir SnapshotStore), puis
+ * l'ancien fichier est supprimé. Rejouer une entrée déjà présente est sans
+ * effet, un arrêt pendant le compactage ne perd donc rien. Tant qu'un .old
+ * subsiste (instantané manqué), le journal courant n'est plus mis de côté,
+ * et l'instantané n'est retenté qu'après un délai qui double à chaque échec.
+ *
+ * Enregistrement : longueur (int), CRC32 (int), "racine\tmot" en UTF-8.
+ */
+public class DerivativeLog implements AutoCloseable {
+
+    private static final long COMPACT_THRESHOLD = 1L << 20;
+    private static final int MAX_BATCH = 1024;
+    private static final int RECORD_HEADER = 8;
+    // Délai avant de retenter un instantané manqué, doublé à chaque échec
+    private static final long RETRY_DELAY = TimeUnit.SECONDS.toNanos(10);
+    private static final long MAX_RETRY_DELAY = TimeUnit.MINUTES.toNanos(10);
+
+    private static final class Entry {
+        final String root;
+        final String word;
+
+        Entry(String root, String word) {
+            this.root = root;
+            this.word = word;
+        }
+    }
+
+    // Marque de fin pour le thread d'écriture
+    private static final Entry CLOSE = new Entry("", "");
+
+    private final Path file;
+    private final Path rotated;
+    private final Path snapshot;
+    private final AVLTree tree;
+    private final HashTableSchemes schemes;
+
+    private final LinkedBlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final Object channelLock = new Object();
+    private final Object compactLock = new Object();
+    private final Thread writer;
+    private FileChannel channel;
+    private volatile boolean closed;
+    // Après un instantané manqué : délai courant et prochain essai (sous compactLock)
+    private long retryDelay;
+    private long retryAt;
+
+
+    private DerivativeLog(Path file, Path snapshot, AVLTree tree, HashTableSchemes schemes) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.rotated = this.file.resolveSibling(this.file.getFileName() + ".old");
+        this.snapshot = snapshot;
+        this.tree = tree;
+        this.schemes = schemes;
+        this.channel = openChannel();
+
+        writer = new Thread(this::writeLoop, "derivative-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Rejoue le journal sur l'arbre puis démarre l'écriture en arrière-plan
+    public static DerivativeLog open(Path file, Path snapshot, AVLTree tree, HashTableSchemes schemes) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Path rotated = absolute.resolveSibling(absolute.getFileName() + ".old");
+
+        long start = System.nanoTime();
+        // Compactage interrompu : l'ancien fichier passe d'abord
+        int replayed = replay(rotated, tree) + replay(absolute, tree);
+        if (replayed > 0) {
+            System.out.println(" " + replayed + " dérivés rejoués depuis " + file);
+        }
+        if (Metrics.ENABLED) {
+            Metrics.recordLoad("journal des dérivés", start);
+        }
+        return new DerivativeLog(file, snapshot, tree, schemes);
+    }
+
+    // ========== RELECTURE ==========
+
+    private static int replay(Path file, AVLTree tree) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return 0;
+        }
+
+        int count = 0;
+        long valid = 0;
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = in.size();
+            ByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            while (buffer.remaining() >= RECORD_HEADER) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length < 0 || length > buffer.remaining()) break;
+
+                byte[] bytes = new byte[length];
+                buffer.get(bytes);
+                CRC32 crc = new CRC32();
+                crc.update(bytes);
+                if ((int) crc.getValue() != checksum) break;
+
+                String record = new String(bytes, StandardCharsets.UTF_8);
+                int tab = record.indexOf('\t');
+                if (tab > 0) {
+                    Node node = tree.search(record.substring(0, tab));
+                    if (node != null && node.getRoot().addDerivative(record.substring(tab + 1))) {
+                        count++;
+                    }
+                }
+                valid = buffer.position();
+            }
+
+            // Fin incomplète (arrêt pendant une écriture) : tronquée avant d'ajouter
+            if (valid < size) {
+                System.err.println(" Journal tronqué après " + valid + " octets: " + file);
+                in.truncate(valid);
+            }
+        }
+        return count;
+    }
+
+    // ========== ÉCRITURE ==========
+
+    // Non bloquant : l'entrée sera écrite et synchronisée avec le prochain lot
+    public void append(Root root, String word) {
+        if (root == null || word == null || closed) return;
+        queue.add(new Entry(root.getLetters(), word));
+    }
+
+    private FileChannel openChannel() throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>(MAX_BATCH);
+        boolean running = true;
+
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+
+            if (batch.remove(CLOSE)) {
+                // Les entrées déposées avant close sont écrites avant l'arrêt
+                queue.drainTo(batch);
+                batch.remove(CLOSE);
+                running = false;
+            }
+
+            try {
+                long size = writeBatch(batch);
+                if (running && size > COMPACT_THRESHOLD && compactionDue()) {
+                    compact();
+                }
+            } catch (IOException e) {
+                System.err.println(" Erreur d'écriture du journal des dérivés: " + e.getMessage());
+            }
+            batch.clear();
+        }
+    }
+
+    // Un seul write et un seul fsync pour tout le lot ; retourne la taille du journal
+    private long writeBatch(List<Entry> batch) throws IOException {
+        if (batch.isEmpty()) {
+            synchronized (channelLock) {
+                return channel.size();
+            }
+        }
+
+        List<byte[]> records = new ArrayList<>(batch.size());
+        int total = 0;
+        for (Entry entry : batch) {
+            byte[] bytes = (entry.root + "\t" + entry.word).getBytes(StandardCharsets.UTF_8);
+            records.add(bytes);
+            total += RECORD_HEADER + bytes.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(total);
+        CRC32 crc = new CRC32();
+        for (byte[] bytes : records) {
+            crc.reset();
+            crc.update(bytes);
+            buffer.putInt(bytes.length).putInt((int) crc.getValue()).put(bytes);
+        }
+        buffer.flip();
+
+        synchronized (channelLock) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            return channel.size();
+        }
+    }
+
+    // ========== COMPACTAGE ==========
+
+    // Une erreur d'écriture persistante ne doit pas ajouter un instantané
+    // complet à chaque lot
+    private boolean compactionDue() {
+        synchronized (compactLock) {
+            return retryDelay == 0 || System.nanoTime() - retryAt >= 0;
+        }
+    }
+
+    // Les dérivés du journal sont déjà en mémoire : un instantané les contient tous
+    public void compact() throws IOException {
+        synchronized (compactLock) {
+            // Un .old gardé après un instantané manqué n'est jamais écrasé :
+            // le journal courant reste en place et seul l'instantané est retenté
+            if (!Files.exists(rotated)) {
+                synchronized (channelLock) {
+                    channel.close();
+                    try {
+                        Files.move(file, rotated);
+                    } finally {
+                        channel = openChannel();
+                    }
+                }
+            }
+
+            // Instantané non écrit : l'ancien journal est gardé et sera rejoué
+            if (SnapshotStore.save(snapshot, tree, schemes)) {
+                Files.deleteIfExists(rotated);
+                if (retryDelay > 0) {
+                    System.out.println(" Compactage du journal des dérivés rétabli");
+                    retryDelay = 0;
+                }
+            } else {
+                // Signalé une fois, pas à chaque essai
+                if (retryDelay == 0) {
+                    System.err.println(" Compactage différé, ancien journal gardé: " + rotated);
+                }
+                retryDelay = retryDelay == 0 ? RETRY_DELAY : Math.min(2 * retryDelay, MAX_RETRY_DELAY);
+                retryAt = System.nanoTime() + retryDelay;
+            }
+        }
+    }
+
+    // ========== FERMETURE ==========
+
+    // Écrit les entrées en attente puis ferme le fichier
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+
+        queue.add(CLOSE);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (channelLock) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println(" Erreur de fermeture du journal des dérivés: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -4,13 +4,15 @@ import models.Root;
 import models.Scheme;
 import structures.AVLTree;
 import structures.HashTableSchemes;
+import utils.Metrics;
 
-import java.io.*;
-import java.nio.charset.StandardCharsets;
+import java.io.File;
+import java.io.IOException;
 
 public class FileLoader {
 
 
+    // Lecture projetée en mémoire et analysée en parallèle (voir MappedLineReader)
     public static void loadRoots(String filename, AVLTree tree) {
         File file = new File(filename);
         if (!file.exists()) {
@@ -19,29 +21,19 @@ public class FileLoader {
             return;
         }
 
-        try (BufferedReader br = new BufferedReader(
-                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+        long start = System.nanoTime();
+        try {
+            // Créer les racines avec détection automatique du type
+            MappedLineReader.Result<Root> result = MappedLineReader.read(file.toPath(), Root::new);
 
-            String line;
-            int count = 0;
+            // Construction de l'arbre en une passe à partir du lot trié
+            tree.insertAll(result.items);
 
-            while ((line = br.readLine()) != null) {
-                line = line.trim();
-
-                // Ignorer les lignes vides et les commentaires
-                if (line.isEmpty() || line.startsWith("#")) {
-                    continue;
-                }
-
-                // Créer la racine avec détection automatique du type
-                Root root = new Root(line);
-                root.detectType();
-                tree.insert(root);
-                count++;
+            System.out.println(" " + result.items.size() + " racines chargées depuis " + filename);
+            if (Metrics.ENABLED) {
+                Metrics.recordLoad("racines", start);
             }
 
-            System.out.println(" " + count + " racines chargées depuis " + filename);
-
         } catch (IOException e) {
             System.err.println(" Erreur lors du chargement des racines: " + e.getMessage());
         }
@@ -57,31 +49,23 @@ public class FileLoader {
             return;
         }
 
-        try (BufferedReader br = new BufferedReader(
-                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
-
-            String line;
-            int count = 0;
-
-            while ((line = br.readLine()) != null) {
-                line = line.trim();
-
-
-                if (line.isEmpty() || line.startsWith("#")) {
-                    continue;
-                }
-
-                // Parser la ligne (format: nom|pattern)
+        long start = System.nanoTime();
+        try {
+            // Parser la ligne (format: nom|pattern)
+            MappedLineReader.Result<Scheme> result = MappedLineReader.read(file.toPath(), line -> {
                 String[] parts = line.split("\\|");
-                if (parts.length == 2) {
-                    schemes.insert(new Scheme(parts[0].trim(), parts[1].trim()));
-                    count++;
-                } else {
-                    System.err.println(" Ligne invalide ignorée: " + line);
-                }
+                return parts.length == 2 ? new Scheme(parts[0].trim(), parts[1].trim()) : null;
+            });
+
+            for (String line : result.invalid) {
+                System.err.println(" Ligne invalide ignorée: " + line);
             }
+            schemes.insertAll(result.items);
 
-            System.out.println(" " + count + " schèmes chargés depuis " + filename);
+            System.out.println(" " + result.items.size() + " schèmes chargés depuis " + filename);
+            if (Metrics.ENABLED) {
+                Metrics.recordLoad("schèmes", start);
+            }
 
         } catch (IOException e) {
             System.err.println(" Erreur lors du chargement des schèmes: " + e.getMessage());
@@ -0,0 +1,159 @@
+package io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Lecture parallèle d'un fichier texte UTF-8 projeté en mémoire.
+ * Le fichier est découpé en tranches qui se terminent sur un '\n'
+ * (octet qui n'apparaît jamais à l'intérieur d'un caractère UTF-8) ;
+ * chaque tranche est décodée et analysée sur le pool commun, puis les
+ * résultats sont recollés dans l'ordre du fichier.
+ */
+final class MappedLineReader {
+
+    // Taille visée d'une tranche
+    private static final long CHUNK_SIZE = 1L << 22;
+    private static final int SCAN_BUFFER = 4096;
+
+    // Analyse d'une ligne déjà nettoyée (trim, ni vide ni commentaire)
+    interface LineParser<T> {
+        // null si la ligne est invalide
+        T parse(String line);
+    }
+
+    // Résultat d'une lecture : éléments et lignes invalides, dans l'ordre du fichier
+    static final class Result<T> {
+        final List<T> items;
+        final List<String> invalid;
+
+        Result(List<T> items, List<String> invalid) {
+            this.items = items;
+            this.invalid = invalid;
+        }
+    }
+
+    private MappedLineReader() {
+    }
+
+    static <T> Result<T> read(Path file, LineParser<T> parser) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = split(channel);
+
+            List<Result<T>> parts;
+            try {
+                parts = IntStream.range(0, bounds.length - 1)
+                        .parallel()
+                        .mapToObj(i -> parseChunk(channel, bounds[i], bounds[i + 1], parser))
+                        .collect(Collectors.toList());
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            List<T> items = new ArrayList<>();
+            List<String> invalid = new ArrayList<>();
+            for (Result<T> part : parts) {
+                items.addAll(part.items);
+                invalid.addAll(part.invalid);
+            }
+            return new Result<>(items, invalid);
+        }
+    }
+
+    // ========== DÉCOUPAGE ==========
+
+    // Bornes des tranches : 0, fins de ligne proches des multiples de CHUNK_SIZE, taille
+    private static long[] split(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+
+        long position = CHUNK_SIZE;
+        while (position < size) {
+            long end = nextLineStart(channel, position, size);
+            if (end >= size) break;
+            bounds.add(end);
+            position = end + CHUNK_SIZE;
+        }
+        bounds.add(size);
+
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    // Position qui suit le premier '\n' à partir de position (ou size)
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER);
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    // ========== ANALYSE D'UNE TRANCHE ==========
+
+    private static <T> Result<T> parseChunk(FileChannel channel, long start, long end, LineParser<T> parser) {
+        CharBuffer text;
+        try {
+            ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            // Comme InputStreamReader : les octets invalides sont remplacés, pas rejetés
+            CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            text = decoder.decode(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        char[] chars = text.array();
+        int offset = text.arrayOffset();
+        int length = text.remaining();
+
+        List<T> items = new ArrayList<>();
+        List<String> invalid = new ArrayList<>();
+
+        int lineStart = 0;
+        for (int i = 0; i <= length; i++) {
+            if (i < length && chars[offset + i] != '\n') continue;
+
+            String line = new String(chars, offset + lineStart, i - lineStart).trim();
+            lineStart = i + 1;
+
+            // Ignorer les lignes vides et les commentaires
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            T item = parser.parse(line);
+            if (item != null) {
+                items.add(item);
+            } else {
+                invalid.add(line);
+            }
+        }
+        return new Result<>(items, invalid);
+    }
+}
@@ -0,0 +1,113 @@
+package io;
+
+import structures.HashTableSchemes;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rechargement à chaud du fichier des schèmes.
+ * Un thread surveille le répertoire du fichier ; à chaque modification, le
+ * fichier est relu (même format que FileLoader.loadSchemes) dans une table
+ * neuve, hors du thread principal, puis son contenu remplace celui de la
+ * table en service en une seule publication (HashTableSchemes.replaceAll).
+ * Les analyses en cours terminent sur l'ancienne version ; les index
+ * abonnés à la table sont reconstruits à côté puis publiés.
+ */
+public class SchemeReloader implements AutoCloseable {
+
+    // Un éditeur écrit souvent le fichier en plusieurs fois : on attend le calme
+    private static final long SETTLE_MILLIS = 200;
+
+    private final Path file;
+    private final HashTableSchemes schemes;
+    private final WatchService watcher;
+    private final Thread thread;
+
+
+    private SchemeReloader(Path file, HashTableSchemes schemes) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.schemes = schemes;
+        this.watcher = FileSystems.getDefault().newWatchService();
+        this.file.getParent().register(watcher,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        thread = new Thread(this::watchLoop, "scheme-reloader");
+        thread.setDaemon(true);
+    }
+
+    public static SchemeReloader start(Path file, HashTableSchemes schemes) throws IOException {
+        SchemeReloader reloader = new SchemeReloader(file, schemes);
+        reloader.thread.start();
+        return reloader;
+    }
+
+    // ========== SURVEILLANCE ==========
+
+    private void watchLoop() {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                boolean changed = concernsFile(key);
+                key.reset();
+                if (!changed) continue;
+
+                // Regroupe les événements d'une même sauvegarde
+                WatchKey next;
+                while ((next = watcher.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    concernsFile(next);
+                    next.reset();
+                }
+                reload();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // close() : fin de la surveillance
+        }
+    }
+
+    private boolean concernsFile(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            Object context = event.context();
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || (context instanceof Path && file.getFileName().equals(context))) {
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    // ========== RECHARGEMENT ==========
+
+    // Relit le fichier et remplace la table ; l'ancienne est gardée si le fichier est vide ou illisible
+    public void reload() {
+        HashTableSchemes fresh = new HashTableSchemes(Math.max(16, schemes.size() * 2));
+        FileLoader.loadSchemes(file.toString(), fresh);
+
+        if (fresh.isEmpty()) {
+            System.err.println(" Rechargement ignoré, aucun schème valide dans " + file);
+            return;
+        }
+        schemes.replaceAll(fresh.getAllSchemes());
+        System.out.println(" Schèmes rechargés: " + schemes.size());
+    }
+
+    @Override
+    public void close() {
+        try {
+            watcher.close();
+        } catch (IOException e) {
+            System.err.println(" Erreur de fermeture de la surveillance: " + e.getMessage());
+        }
+        thread.interrupt();
+    }
+}
@@ -0,0 +1,271 @@
+package io;
+
+import models.Node;
+import models.Root;
+import models.Scheme;
+import structures.AVLTree;
+import structures.HashTableSchemes;
+import utils.Metrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Instantané binaire du lexique chargé : racines (avec leur type et leurs
+ * dérivés validés) et schèmes. Au démarrage, la lecture d'un instantané
+ * évite d'analyser les fichiers texte et de redétecter le type de chaque
+ * racine ; l'arbre est reconstruit en une passe à partir des racines triées.
+ *
+ * Format (gros-boutiste) :
+ *   en-tête  : MAGIC (int), VERSION (int), taille des données (long), CRC32 des données (int)
+ *   données  : nombre de racines, puis pour chacune lettres, type, dérivés ;
+ *              nombre de schèmes, puis pour chacun nom et pattern.
+ * Les chaînes sont en UTF-8 précédées de leur longueur (int).
+ */
+public final class SnapshotStore {
+
+    private static final int MAGIC = 0x4D524653; // "MRFS"
+    public static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4;
+
+    private SnapshotStore() {
+    }
+
+    // ========== FRAÎCHEUR ==========
+
+    // Vrai si l'instantané existe et est plus récent que toutes les sources présentes
+    public static boolean isFresh(Path snapshot, Path... sources) {
+        try {
+            if (!Files.isRegularFile(snapshot)) {
+                return false;
+            }
+            FileTime saved = Files.getLastModifiedTime(snapshot);
+            for (Path source : sources) {
+                if (Files.exists(source) && Files.getLastModifiedTime(source).compareTo(saved) >= 0) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // ========== ÉCRITURE ==========
+
+    // Retourne false si l'écriture a échoué (l'instantané précédent reste en place)
+    public static boolean save(Path file, AVLTree tree, HashTableSchemes schemes) {
+        List<Root> roots = tree.getAllRoots();
+        List<Scheme> allSchemes = schemes.getAllSchemes();
+
+        Writer out = new Writer();
+        out.putInt(roots.size());
+        for (Root root : roots) {
+            out.putString(root.getLetters());
+            out.putString(root.getType());
+            List<String> derivatives = root.getValidatedDerivatives();
+            out.putInt(derivatives.size());
+            for (String derivative : derivatives) {
+                out.putString(derivative);
+            }
+        }
+        out.putInt(allSchemes.size());
+        for (Scheme scheme : allSchemes) {
+            out.putString(scheme.getName());
+            out.putString(scheme.getPattern());
+        }
+
+        ByteBuffer payload = out.finish();
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(payload.remaining()).putInt((int) crc.getValue());
+        header.flip();
+
+        // Écriture dans un fichier temporaire puis remplacement atomique :
+        // un arrêt brutal ne laisse jamais un instantané à moitié écrit
+        Path target = file.toAbsolutePath();
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (header.hasRemaining() || payload.hasRemaining()) {
+                    channel.write(new ByteBuffer[] {header, payload});
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println(" Erreur lors de l'écriture de l'instantané: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // ========== LECTURE ==========
+
+    // Retourne false (sans rien modifier) si l'instantané est absent, d'une autre version ou corrompu
+    public static boolean load(Path file, AVLTree tree, HashTableSchemes schemes) {
+        long start = System.nanoTime();
+        Contents contents = read(file);
+        if (contents == null) {
+            return false;
+        }
+
+        // Racines déjà triées : l'arbre est construit en une passe
+        tree.insertAll(contents.roots);
+        schemes.insertAll(contents.schemes);
+        System.out.println(" " + contents.roots.size() + " racines et " + contents.schemes.size()
+                + " schèmes chargés depuis " + file);
+        if (Metrics.ENABLED) {
+            Metrics.recordLoad("instantané", start);
+        }
+        return true;
+    }
+
+    // Reprend seulement les dérivés validés, pour les racines présentes dans l'arbre
+    // (instantané périmé parce que les fichiers texte ont changé)
+    public static int loadDerivatives(Path file, AVLTree tree) {
+        if (!Files.isRegularFile(file)) {
+            return 0;
+        }
+        Contents contents = read(file);
+        if (contents == null) {
+            return 0;
+        }
+
+        int count = 0;
+        for (Root saved : contents.roots) {
+            Node node = tree.search(saved.getLetters());
+            if (node == null) continue;
+            for (String derivative : saved.getValidatedDerivatives()) {
+                if (node.getRoot().addDerivative(derivative)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static final class Contents {
+        final List<Root> roots;
+        final List<Scheme> schemes;
+
+        Contents(List<Root> roots, List<Scheme> schemes) {
+            this.roots = roots;
+            this.schemes = schemes;
+        }
+    }
+
+    private static Contents read(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                System.err.println(" Instantané ignoré (trop court): " + file);
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            if (buffer.getInt() != MAGIC) {
+                System.err.println(" Instantané ignoré (format inconnu): " + file);
+                return null;
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                System.err.println(" Instantané ignoré (version " + version + "): " + file);
+                return null;
+            }
+            long length = buffer.getLong();
+            int checksum = buffer.getInt();
+            if (length != size - HEADER_SIZE) {
+                System.err.println(" Instantané ignoré (taille incohérente): " + file);
+                return null;
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                System.err.println(" Instantané ignoré (somme de contrôle invalide): " + file);
+                return null;
+            }
+
+            int rootCount = buffer.getInt();
+            List<Root> roots = new ArrayList<>(rootCount);
+            for (int i = 0; i < rootCount; i++) {
+                // Type enregistré : pas de nouvelle détection
+                Root root = new Root(getString(buffer), getString(buffer));
+                int derivatives = buffer.getInt();
+                for (int d = 0; d < derivatives; d++) {
+                    root.addDerivative(getString(buffer));
+                }
+                roots.add(root);
+            }
+
+            int schemeCount = buffer.getInt();
+            List<Scheme> schemes = new ArrayList<>(schemeCount);
+            for (int i = 0; i < schemeCount; i++) {
+                schemes.add(new Scheme(getString(buffer), getString(buffer)));
+            }
+            return new Contents(roots, schemes);
+        } catch (IOException | RuntimeException e) {
+            System.err.println(" Instantané ignoré: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Tampon d'écriture extensible
+    private static final class Writer {
+        private ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+
+        void putInt(int value) {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ensure(4 + bytes.length);
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+
+        private void ensure(int needed) {
+            if (buffer.remaining() < needed) {
+                int capacity = Math.max(buffer.capacity() * 2, buffer.position() + needed);
+                ByteBuffer bigger = ByteBuffer.allocate(capacity);
+                buffer.flip();
+                bigger.put(buffer);
+                buffer = bigger;
+            }
+        }
+
+        ByteBuffer finish() {
+            buffer.flip();
+            return buffer;
+        }
+    }
+}
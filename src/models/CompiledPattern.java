@@ -0,0 +1,170 @@
+package models;
+
+import utils.ArabicNormalizer;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Forme compilée d'un pattern morphologique (ex: "م+C1+C2+و+C3").
+ * Le pattern est analysé une seule fois en un gabarit de caractères
+ * où les positions des lettres de la racine (C1, C2, C3) sont des cases
+ * à remplir. La génération ne fait plus qu'une copie de tableau.
+ *
+ * La reconnaissance compare des mots sans diacritiques : elle passe par
+ * normalized(), le même gabarit sans harakat (ex: "C1+C2+َ+C3" -> C1C2C3).
+ */
+public final class CompiledPattern {
+
+    // Cache partagé pour les patterns qui ne sont pas portés par un Scheme
+    // (schèmes par type de racine). Jamais vidé : réservé à ces patterns
+    // fixes, un pattern propre à un mot passe par compile ou Scheme.getCompiled
+    private static final ConcurrentHashMap<String, CompiledPattern> CACHE = new ConcurrentHashMap<>();
+
+    private final String source;
+    private final char[] template;
+    private final int[] slotPositions;
+    private final int[] slotLetters;
+    // Gabarit sans diacritiques, calculé à la première demande
+    private volatile CompiledPattern normalized;
+
+
+    private CompiledPattern(String source, char[] template, int[] slotPositions, int[] slotLetters) {
+        this.source = source;
+        this.template = template;
+        this.slotPositions = slotPositions;
+        this.slotLetters = slotLetters;
+    }
+
+    // ========== COMPILATION ==========
+
+    public static CompiledPattern compile(String pattern) {
+        if (pattern == null) {
+            pattern = "";
+        }
+
+        int length = pattern.length();
+        char[] buffer = new char[length];
+        int[] positions = new int[length];
+        int[] letters = new int[length];
+        int size = 0;
+        int slots = 0;
+
+        for (int i = 0; i < length; i++) {
+            char c = pattern.charAt(i);
+
+            if (c == 'C' && i + 1 < length) {
+                char next = pattern.charAt(i + 1);
+                if (next >= '1' && next <= '3') {
+                    positions[slots] = size;
+                    letters[slots] = next - '1';
+                    slots++;
+                    buffer[size++] = '?';
+                    i++;
+                    continue;
+                }
+            }
+
+            // Les séparateurs ne font pas partie du mot généré
+            if (c == '+' || c == ' ') {
+                continue;
+            }
+            buffer[size++] = c;
+        }
+
+        char[] template = new char[size];
+        System.arraycopy(buffer, 0, template, 0, size);
+        int[] slotPositions = new int[slots];
+        int[] slotLetters = new int[slots];
+        System.arraycopy(positions, 0, slotPositions, 0, slots);
+        System.arraycopy(letters, 0, slotLetters, 0, slots);
+
+        return new CompiledPattern(pattern, template, slotPositions, slotLetters);
+    }
+
+    // Version mise en cache, pour les patterns fixes partagés par de nombreuses
+    // racines (Root.schemesForType)
+    public static CompiledPattern of(String pattern) {
+        if (pattern == null) {
+            return compile(null);
+        }
+        return CACHE.computeIfAbsent(pattern, CompiledPattern::compile);
+    }
+
+    // Gabarit à comparer aux mots normalisés (ArabicNormalizer.DIACRITICS) ;
+    // this si le pattern ne contient aucun diacritique
+    public CompiledPattern normalized() {
+        CompiledPattern n = normalized;
+        if (n == null) {
+            String stripped = ArabicNormalizer.DIACRITICS.normalize(source);
+            n = stripped.equals(source) ? this : compile(stripped);
+            normalized = n;
+        }
+        return n;
+    }
+
+    // ========== GÉNÉRATION ==========
+
+    // Remplit le gabarit avec les 3 lettres de la racine
+    public String fill(String letters) {
+        char[] out = template.clone();
+        for (int i = 0; i < slotPositions.length; i++) {
+            out[slotPositions[i]] = letters.charAt(slotLetters[i]);
+        }
+        return new String(out);
+    }
+
+    // Compare un mot au gabarit sans construire de chaîne intermédiaire
+    public boolean matches(CharSequence word, String letters) {
+        if (word == null || word.length() != template.length) {
+            return false;
+        }
+
+        int slot = 0;
+        for (int i = 0; i < template.length; i++) {
+            char expected;
+            if (slot < slotPositions.length && slotPositions[slot] == i) {
+                expected = letters.charAt(slotLetters[slot]);
+                slot++;
+            } else {
+                expected = template[i];
+            }
+            if (word.charAt(i) != expected) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    public String getSource() {
+        return source;
+    }
+
+    public int length() {
+        return template.length;
+    }
+
+    public int getSlotCount() {
+        return slotPositions.length;
+    }
+
+    // Position dans le mot généré de la i-ème case
+    public int getSlotPosition(int i) {
+        return slotPositions[i];
+    }
+
+    // Indice de la lettre de racine (0, 1 ou 2) attendue dans la i-ème case
+    public int getSlotLetter(int i) {
+        return slotLetters[i];
+    }
+
+    // Caractère littéral à la position donnée (sans signification pour une case)
+    public char literalAt(int position) {
+        return template[position];
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledPattern[" + source + "]";
+    }
+}
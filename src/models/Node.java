@@ -9,6 +9,7 @@ public class Node {
     public Node left;
     public Node right;
     int height;
+    int size;
 
 
     public Node(Root root) {
@@ -16,6 +17,16 @@ public class Node {
         this.left = null;
         this.right = null;
         this.height = 1;
+        this.size = 1;
+    }
+
+    // Copie d'un noeud (mêmes enfants), utilisée pour la copie de chemin
+    public Node(Node other) {
+        this.root = other.root;
+        this.left = other.left;
+        this.right = other.right;
+        this.height = other.height;
+        this.size = other.size;
     }
 
 
@@ -51,6 +62,15 @@ public class Node {
         this.height = height;
     }
 
+    // Nombre de noeuds du sous-arbre enraciné ici
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
 
     //noued est  feuille
 
@@ -1,8 +1,12 @@
 package models;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Classe représentant une racine arabe trilitère.
@@ -19,17 +23,22 @@ public class Root {
     public static final String CREUSE = "CREUSE";
     public static final String DEFECTIVE = "DEFECTIVE";
 
+    public static final List<String> TYPES = List.of(REGULIERE, FAIBLE, HAMZA, ASSIMILEE, CREUSE, DEFECTIVE);
+
+    // Tables de schèmes par type, construites à la première demande et
+    // partagées (non modifiables) par toutes les racines du même type
+    private static final Map<String, Map<String, String>> SCHEMES_BY_TYPE = new ConcurrentHashMap<>();
+
 
     private String letters;
     private String type;
-    private ArrayList<String> validatedDerivatives;
+    // Alloué au premier dérivé ; ordre d'insertion conservé pour l'affichage
+    private LinkedHashSet<String> validatedDerivatives;
     private Map<String, String> availableSchemes;
 
 
     public Root(String letters) {
         this.letters = letters;
-        this.validatedDerivatives = new ArrayList<>();
-        this.availableSchemes = new HashMap<>();
         detectType();
         initializeAvailableSchemes();
     }
@@ -37,15 +46,24 @@ public class Root {
     public Root(String letters, String type) {
         this.letters = letters;
         this.type = type;
-        this.validatedDerivatives = new ArrayList<>();
-        this.availableSchemes = new HashMap<>();
         initializeAvailableSchemes();
     }
 
     // ========== INITIALISATION DES SCHÈMES PAR TYPE ==========
     private void initializeAvailableSchemes() {
-        availableSchemes.clear();
+        availableSchemes = schemesForType(type);
+    }
 
+    // Schèmes propres à un type de racine (nom -> pattern), table partagée
+    public static Map<String, String> schemesForType(String type) {
+        return SCHEMES_BY_TYPE.computeIfAbsent(type, t -> {
+            Map<String, String> typeSchemes = new HashMap<>();
+            putTypeSchemes(t, typeSchemes);
+            return Collections.unmodifiableMap(typeSchemes);
+        });
+    }
+
+    private static void putTypeSchemes(String type, Map<String, String> availableSchemes) {
         availableSchemes.put("فاعل", "C1+ا+C2+C3");
         availableSchemes.put("مفعول", "م+C1+C2+و+C3");
 
@@ -171,8 +189,9 @@ public class Root {
         initializeAvailableSchemes();
     }
 
-    public ArrayList<String> getValidatedDerivatives() {
-        return validatedDerivatives;
+    // Copie : la liste reste utilisable pendant que d'autres dérivés sont ajoutés
+    public synchronized ArrayList<String> getValidatedDerivatives() {
+        return validatedDerivatives == null ? new ArrayList<>() : new ArrayList<>(validatedDerivatives);
     }
 
 
@@ -189,25 +208,28 @@ public class Root {
 
 
     // gestion derivée
-    public boolean addDerivative(String word) {
-        if (hasDerivative(word)) {
+    public synchronized boolean addDerivative(String word) {
+        if (word == null || hasDerivative(word)) {
             return false;
         }
+        if (validatedDerivatives == null) {
+            validatedDerivatives = new LinkedHashSet<>();
+        }
         validatedDerivatives.add(word);
         return true;
     }
 
-    public boolean hasDerivative(String word) {
-        return validatedDerivatives.contains(word);
+    public synchronized boolean hasDerivative(String word) {
+        return validatedDerivatives != null && validatedDerivatives.contains(word);
     }
 
-    public int getDerivativesCount() {
-        return validatedDerivatives.size();
+    public synchronized int getDerivativesCount() {
+        return validatedDerivatives == null ? 0 : validatedDerivatives.size();
     }
 
-    public void displayDerivatives() {
+    public synchronized void displayDerivatives() {
         System.out.println("Dérivés de " + letters + " (" + getDerivativesCount() + "):");
-        if (validatedDerivatives.isEmpty()) {
+        if (validatedDerivatives == null) {
             System.out.println("  (Aucun dérivé)");
         } else {
             for (String derivative : validatedDerivatives) {
@@ -1,26 +1,57 @@
 package models;
 
+// Immuable : la table des schèmes est lue sans verrou, une modification
+// remplace l'entrée par un nouvel objet (HashTableSchemes.modify)
 public class Scheme {
 
-    private String name;
-    private String pattern;
+    private final String name;
+    private final String pattern;
+    // Compilé à la première demande ; deux threads qui le calculent en même
+    // temps obtiennent le même gabarit
+    private volatile CompiledPattern compiled;
+    // Haché du nom, calculé une fois pour la table des schèmes
+    private final int nameHash;
 
     public Scheme(String name, String pattern) {
         this.name = name;
         this.pattern = pattern;
+        this.nameHash = hashName(name);
     }
 
     public String getName() {
         return name;
     }
 
+    public int getNameHash() {
+        return nameHash;
+    }
+
+    // Haché dispersé (bits de poids fort repliés) pour une table en puissance de 2
+    public static int hashName(String name) {
+        if (name == null) return 0;
+        int h = name.hashCode();
+        return h ^ (h >>> 16);
+    }
+
     public String getPattern() {
         return pattern;
     }
 
 
-    public void setPattern(String pattern) {
-        this.pattern = pattern;
+    // Compile le pattern une seule fois (appelé à l'insertion dans la table)
+    public void compile() {
+        if (compiled == null) {
+            compiled = CompiledPattern.compile(pattern);
+        }
+    }
+
+    public CompiledPattern getCompiled() {
+        CompiledPattern c = compiled;
+        if (c == null) {
+            c = CompiledPattern.compile(pattern);
+            compiled = c;
+        }
+        return c;
     }
 
 
@@ -2,50 +2,252 @@ package structures;
 
 import models.Node;
 import models.Root;
+import utils.Metrics;
+import utils.Utils;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-
-
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Arbre AVL des racines, sûr en lecture concurrente.
+ * Les noeuds publiés ne sont jamais modifiés : une insertion copie le chemin
+ * de la racine jusqu'au point d'insertion puis publie la nouvelle racine
+ * (champ volatile). Les lectures (search, contains, parcours) travaillent
+ * sans verrou sur l'instantané lu au début de l'opération ; les insertions
+ * sont sérialisées entre elles.
+ */
 public class AVLTree {
 
 
 
-    private Node root;
-    private int count;
+    private volatile Node root;
+    // Présence des racines codables sur 24 bits, mise à jour avant chaque publication
+    private final RootBitmap bitmap = new RootBitmap();
+    private final List<LexiconListener> listeners = new CopyOnWriteArrayList<>();
 
 
     public AVLTree() {
         this.root = null;
-        this.count = 0;
     }
 
 
-    public void insert(Root r) {
-        if (r == null) return;
+    // Une seule descente : le chemin est mémorisé dans une pile explicite,
+    // un doublon est détecté en chemin, puis la remontée copie et rééquilibre
+    public synchronized void insert(Root r) {
+        if (add(r)) {
+            for (LexiconListener listener : listeners) {
+                listener.rootInserted(r);
+            }
+        }
+    }
+
+    // Insertion sans notification ; faux si la racine était déjà présente
+    private boolean add(Root r) {
+        if (r == null) return false;
+
+        Node current = root;
+        int maxDepth = height(current);
+        Node[] path = new Node[maxDepth];
+        boolean[] wentLeft = new boolean[maxDepth];
+        int depth = 0;
+
+        while (current != null) {
+            int cmp = r.compareTo(current.getRoot());
+            if (cmp == 0) {
+                return false;
+            }
+            path[depth] = current;
+            wentLeft[depth] = cmp < 0;
+            depth++;
+            current = cmp < 0 ? current.left : current.right;
+        }
+
+        // Les noeuds du chemin sont copiés : l'ancien arbre reste intact pour les lecteurs
+        Node child = new Node(r);
+        for (int i = depth - 1; i >= 0; i--) {
+            Node copy = new Node(path[i]);
+            if (wentLeft[i]) {
+                copy.left = child;
+            } else {
+                copy.right = child;
+            }
+            update(copy);
+            child = balance(copy);
+        }
+
+        bitmap.add(Utils.packRoot(r.getLetters()));
+        root = child;
+        return true;
+    }
 
-        if (search(r.getLetters()) != null) {
+    // ========== CHARGEMENT EN MASSE ==========
+
+    // Insère un lot de racines : tri, suppression des doublons, puis
+    // construction d'un arbre parfaitement équilibré en temps linéaire
+    // (fusionné avec les racines déjà présentes)
+    public synchronized void insertAll(Collection<Root> batch) {
+        if (batch == null || batch.isEmpty()) return;
+
+        Root[] sorted = batch.stream().filter(Objects::nonNull).toArray(Root[]::new);
+        sortRoots(sorted);
+
+        Node current = root;
+        int existing = size(current);
+
+        // Petit lot dans un grand arbre : les insertions unitaires coûtent moins
+        // qu'une reconstruction complète
+        if (existing > 0 && (long) sorted.length * log2(existing) < existing) {
+            List<Root> inserted = new ArrayList<>(sorted.length);
+            for (Root r : sorted) {
+                if (add(r)) {
+                    inserted.add(r);
+                }
+            }
+            if (!inserted.isEmpty()) {
+                for (LexiconListener listener : listeners) {
+                    listener.rootsInserted(inserted);
+                }
+            }
             return;
         }
 
-        root = insertRec(root, r);
-        count++;
+        ArrayList<Root> merged = new ArrayList<>(existing + sorted.length);
+        ArrayList<Root> added = new ArrayList<>(sorted.length);
+        ArrayList<Root> old = new ArrayList<>(existing);
+        getAllRootsRec(current, old);
+
+        int i = 0;
+        int j = 0;
+        while (i < old.size() || j < sorted.length) {
+            if (j == sorted.length) {
+                merged.add(old.get(i++));
+                continue;
+            }
+
+            Root candidate = sorted[j];
+            int cmp = i < old.size() ? old.get(i).compareTo(candidate) : 1;
+            if (cmp < 0) {
+                merged.add(old.get(i++));
+            } else {
+                if (cmp > 0 && (added.isEmpty() || added.get(added.size() - 1).compareTo(candidate) != 0)) {
+                    merged.add(candidate);
+                    added.add(candidate);
+                }
+                // cmp == 0 : déjà présente, la racine existante est conservée
+                j++;
+            }
+        }
+
+        if (added.isEmpty()) return;
+
+        Node built = build(merged, 0, merged.size() - 1);
+        for (Root r : added) {
+            bitmap.add(Utils.packRoot(r.getLetters()));
+        }
+        root = built;
+
+        for (LexiconListener listener : listeners) {
+            listener.rootsInserted(added);
+        }
+    }
+
+    // Construit un sous-arbre équilibré à partir d'une liste triée [lo, hi]
+    private Node build(List<Root> sorted, int lo, int hi) {
+        if (lo > hi) return null;
+
+        int mid = (lo + hi) >>> 1;
+        Node node = new Node(sorted.get(mid));
+        node.left = build(sorted, lo, mid - 1);
+        node.right = build(sorted, mid + 1, hi);
+        update(node);
+        return node;
+    }
+
+    // Tri stable : parmi des doublons, la première occurrence est conservée.
+    // Si toutes les racines ont une clé entière (même ordre que les chaînes),
+    // on trie des long (clé << 32 | position) plutôt que des objets
+    private static void sortRoots(Root[] roots) {
+        long[] keys = new long[roots.length];
+        for (int i = 0; i < roots.length; i++) {
+            int key = Utils.packRoot(roots[i].getLetters());
+            if (key < 0) {
+                Arrays.parallelSort(roots, Root::compareTo);
+                return;
+            }
+            keys[i] = ((long) key << 32) | i;
+        }
+
+        Arrays.parallelSort(keys);
+        Root[] copy = roots.clone();
+        for (int i = 0; i < keys.length; i++) {
+            roots[i] = copy[(int) keys[i]];
+        }
+    }
+
+    private static int log2(int n) {
+        return 32 - Integer.numberOfLeadingZeros(n);
+    }
+
+    public void addListener(LexiconListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(LexiconListener listener) {
+        listeners.remove(listener);
     }
 
     public Node search(String letters) {
-        return searchRec(root, letters);
+        Node node = root;
+
+        // Racine absente du bitmap : inutile de descendre dans l'arbre
+        int key = Utils.packRoot(letters);
+        if (key >= 0 && !bitmap.contains(key)) {
+            return null;
+        }
+
+        int depth = 0;
+        while (node != null) {
+            depth++;
+            int cmp = letters.compareTo(node.getRoot().getLetters());
+            if (cmp == 0) {
+                break;
+            }
+            node = cmp < 0 ? node.left : node.right;
+        }
+        if (Metrics.ENABLED) {
+            Metrics.TREE_DEPTH.record(depth);
+        }
+        return node;
     }
 
+    // Réponse directe du bitmap ; recherche dans l'arbre pour les racines non codables
     public boolean contains(String letters) {
+        // La lecture (volatile) de la racine rend visibles les bits publiés avec elle
+        Node snapshot = root;
+        int key = Utils.packRoot(letters);
+        if (key >= 0) {
+            return snapshot != null && bitmap.contains(key);
+        }
         return search(letters) != null;
     }
 
     public int getCount() {
-        return count;
+        return size();
     }
 
     public boolean isEmpty() {
         return root == null;
     }
 
+    // Racine de l'arbre, pour les parcours qui découpent l'arbre en sous-arbres
+    public Node getRootNode() {
+        return root;
+    }
+
 
     private int height(Node node) {
         if (node == null) {
@@ -61,12 +263,18 @@ public class AVLTree {
         return height(node.left) - height(node.right);
     }
 
-    private void updateHeight(Node node) {
+    private int size(Node node) {
+        return node == null ? 0 : node.getSize();
+    }
+
+    // Met à jour la hauteur et la taille du sous-arbre à partir des enfants
+    private void update(Node node) {
         if (node == null) return;
 
         int leftHeight = height(node.left);
         int rightHeight = height(node.right);
         node.setHeight(1 + Math.max(leftHeight, rightHeight));
+        node.setSize(1 + size(node.left) + size(node.right));
     }
 
 
@@ -79,8 +287,8 @@ public class AVLTree {
         x.right = y;
         y.left = T2;
 
-        updateHeight(y);
-        updateHeight(x);
+        update(y);
+        update(x);
 
         return x;
     }
@@ -92,8 +300,8 @@ public class AVLTree {
         y.left = x;
         x.right = T2;
 
-        updateHeight(x);
-        updateHeight(y);
+        update(x);
+        update(y);
 
         return y;
     }
@@ -128,52 +336,13 @@ public class AVLTree {
     }
 
 
-    // Insertion et maj des hauteurs et équilibrage
-
-    private Node insertRec(Node node, Root r) {
-        if (node == null) {
-            return new Node(r);
-        }
-
-        int cmp = r.compareTo(node.getRoot());
-
-        if (cmp < 0) {
-            node.left = insertRec(node.left, r);
-        } else if (cmp > 0) {
-            node.right = insertRec(node.right, r);
-        } else {
-            return node;
-        }
-
-        updateHeight(node);
-        return balance(node);
-    }
-
-    // Recherche
-
-    private Node searchRec(Node node, String letters) {
-        if (node == null) {
-            return null;
-        }
-
-        int cmp = letters.compareTo(node.getRoot().getLetters());
-
-        if (cmp == 0) {
-            return node;
-        } else if (cmp < 0) {
-            return searchRec(node.left, letters);
-        } else {
-            return searchRec(node.right, letters);
-        }
-    }
-
     // affichage
 
 
     public void displayInOrder() {
         System.out.println("=== Affichage In-Order ===");
         displayInOrderRec(root);
-        System.out.println("Total: " + count + " racines");
+        System.out.println("Total: " + size() + " racines");
     }
 
     private void displayInOrderRec(Node node) {
@@ -187,7 +356,7 @@ public class AVLTree {
     public void displayPreOrder() {
         System.out.println("=== Affichage Pre-Order ===");
         displayPreOrderRec(root);
-        System.out.println("Total: " + count + " racines");
+        System.out.println("Total: " + size() + " racines");
     }
 
     private void displayPreOrderRec(Node node) {
@@ -205,7 +374,7 @@ public class AVLTree {
         } else {
             displayTreeRec(root, "", true);
         }
-        System.out.println("Total: " + count + " racines");
+        System.out.println("Total: " + size() + " racines");
     }
 
     private void displayTreeRec(Node node, String prefix, boolean isLeft) {
@@ -242,7 +411,7 @@ public class AVLTree {
 
     public void displayStatistics() {
         System.out.println("=== Statistiques de l'arbre AVL ===");
-        System.out.println("Nombre de racines: " + count);
+        System.out.println("Nombre de racines: " + size());
         System.out.println("Hauteur de l'arbre: " + height(root));
         System.out.println("Arbre équilibré: " + isBalanced());
     }
@@ -267,13 +436,89 @@ public class AVLTree {
         return height(root);
     }
 
+    // Taille mémorisée dans la racine : O(1)
     public int size() {
-        return countNodes(root);
+        return size(root);
     }
 
-    private int countNodes(Node node) {
-        if (node == null) return 0;
-        return 1 + countNodes(node.left) + countNodes(node.right);
+    // ========== STATISTIQUES D'ORDRE ==========
+
+    // Nombre de racines strictement inférieures (position si la racine existe)
+    public int rank(String letters) {
+        Node node = root;
+        int rank = 0;
+        while (node != null) {
+            int cmp = letters.compareTo(node.getRoot().getLetters());
+            if (cmp <= 0) {
+                if (cmp == 0) {
+                    return rank + size(node.left);
+                }
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    // k-ième racine dans l'ordre (à partir de 0), null si hors limites
+    public Root select(int k) {
+        Node node = root;
+        if (k < 0 || k >= size(node)) {
+            return null;
+        }
+
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (k < leftSize) {
+                node = node.left;
+            } else if (k == leftSize) {
+                return node.getRoot();
+            } else {
+                k -= leftSize + 1;
+                node = node.right;
+            }
+        }
+        return null;
+    }
+
+    // Page de racines [from, from + limit) dans l'ordre, sans tout parcourir
+    public ArrayList<Root> getRoots(int from, int limit) {
+        ArrayList<Root> page = new ArrayList<>();
+        Node node = root;
+        if (from < 0 || limit <= 0 || from >= size(node)) {
+            return page;
+        }
+
+        // Descente vers la position "from" en empilant les ancêtres restant à visiter
+        ArrayDeque<Node> stack = new ArrayDeque<>();
+        int k = from;
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (k < leftSize) {
+                stack.push(node);
+                node = node.left;
+            } else if (k == leftSize) {
+                stack.push(node);
+                break;
+            } else {
+                k -= leftSize + 1;
+                node = node.right;
+            }
+        }
+
+        // Parcours infixe à partir de là
+        while (!stack.isEmpty() && page.size() < limit) {
+            Node current = stack.pop();
+            page.add(current.getRoot());
+            Node next = current.right;
+            while (next != null) {
+                stack.push(next);
+                next = next.left;
+            }
+        }
+        return page;
     }
 
 
@@ -1,152 +1,411 @@
 package structures;
 
 import models.Scheme;
-import java.util.LinkedList;
+import utils.Metrics;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+/**
+ * Table de hachage des schèmes, indexée par nom, sûre en accès concurrent.
+ * Adressage ouvert avec sondage linéaire dans un tableau de taille
+ * puissance de 2 : pas de liste chaînée par case, un masque au lieu
+ * d'un modulo, et le haché du nom est mémorisé dans le Scheme.
+ *
+ * Les écritures, rares, sont sérialisées et modifient la table sur place
+ * (une insertion coûte O(1) amorti) ; chaque case est publiée par un
+ * AtomicReferenceArray, et le tableau n'est remplacé qu'au
+ * redimensionnement. search lit sans verrou : un compteur de version,
+ * impair pendant une suppression (les éléments de la séquence de sondage
+ * sont alors déplacés), lui permet de recommencer une recherche
+ * infructueuse qui l'a croisée. getAllSchemes rend une liste immuable
+ * construite à la première demande après chaque écriture, puis partagée.
+ */
 public class HashTableSchemes {
 
     // ===== ATTRIBUTS =====
-    private LinkedList<Scheme>[] table;
+    private static final double LOAD_FACTOR_THRESHOLD = 0.5;
+    private final List<LexiconListener> listeners = new CopyOnWriteArrayList<>();
+    private final Object writeLock = new Object();
+    private volatile AtomicReferenceArray<Scheme> table;
+    // Écrit sous writeLock avant version, lu après elle
     private int size;
-    private int capacity;
-    private static final double LOAD_FACTOR_THRESHOLD = 0.75;
+    // Change à chaque écriture ; impair pendant une suppression
+    private final AtomicInteger version = new AtomicInteger();
+    private volatile SchemeList schemes;
+
+    // Liste des schèmes telle qu'à une version donnée de la table
+    private static final class SchemeList {
+        final int version;
+        final List<Scheme> list;
+
+        SchemeList(int version, List<Scheme> list) {
+            this.version = version;
+            this.list = list;
+        }
+    }
 
     // ===== CONSTRUCTEUR =====
-    @SuppressWarnings("unchecked")
     public HashTableSchemes(int capacity) {
-        this.capacity = capacity;
-        table = new LinkedList[capacity];
-        size = 0;
+        table = new AtomicReferenceArray<>(tableSizeFor(capacity));
+    }
+
+    // Plus petite puissance de 2 >= n (au moins 2)
+    private static int tableSizeFor(int n) {
+        if (n <= 2) return 2;
+        int highest = Integer.highestOneBit(n - 1) << 1;
+        return highest > 0 ? highest : 1 << 30;
+    }
+
+    // Case du schème s'il existe, sinon -(case libre) - 1
+    private static int find(AtomicReferenceArray<Scheme> table, String name, int hash) {
+        int mask = table.length() - 1;
+        int index = hash & mask;
+        int probes = 1;
+        while (true) {
+            Scheme s = table.get(index);
+            if (s == null) {
+                if (Metrics.ENABLED) Metrics.SCHEME_PROBES.record(probes);
+                return -index - 1;
+            }
+            if (s.getNameHash() == hash && s.getName().equals(name)) {
+                if (Metrics.ENABLED) Metrics.SCHEME_PROBES.record(probes);
+                return index;
+            }
+            index = (index + 1) & mask;
+            probes++;
+        }
     }
 
-    // ===== FONCTION DE HACHAGE SÉCURISÉE =====
-    private int hash(String key) {
-        return (key.hashCode() & 0x7fffffff) % capacity;
+    // Écriture terminée : les recherches et la liste en cours recommencent
+    // (appelé sous writeLock, comme beginShift / endShift)
+    private void published() {
+        version.setRelease(version.get() + 2);
+    }
+
+    private void beginShift() {
+        version.incrementAndGet();
+    }
+
+    private void endShift() {
+        version.incrementAndGet();
     }
 
     // ===== REDIMENSIONNEMENT =====
-    private void resize() {
-        int newCapacity = capacity * 2;
-        LinkedList<Scheme>[] oldTable = table;
-
-        table = new LinkedList[newCapacity];
-        capacity = newCapacity;
-        size = 0;
-
-        for (LinkedList<Scheme> bucket : oldTable) {
-            if (bucket != null) {
-                for (Scheme scheme : bucket) {
-                    insert(scheme);
+
+    // Réinsertion directe : les schèmes sont déjà uniques et déjà notifiés.
+    // Le nouveau tableau est rempli avant d'être publié
+    private static AtomicReferenceArray<Scheme> rehash(AtomicReferenceArray<Scheme> oldTable, int capacity) {
+        if (Metrics.ENABLED) {
+            Metrics.SCHEME_RESIZES.increment();
+        }
+        AtomicReferenceArray<Scheme> resized = new AtomicReferenceArray<>(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldTable.length(); i++) {
+            Scheme scheme = oldTable.get(i);
+            if (scheme != null) {
+                int index = scheme.getNameHash() & mask;
+                while (resized.get(index) != null) {
+                    index = (index + 1) & mask;
                 }
+                resized.set(index, scheme);
             }
         }
+        return resized;
+    }
+
+    // Agrandit la table si count schèmes de plus dépasseraient le seuil ;
+    // vrai si le tableau a changé
+    private boolean ensureCapacity(int count) {
+        int capacity = table.length();
+        while ((double) (size + count) / capacity > LOAD_FACTOR_THRESHOLD) {
+            capacity *= 2;
+        }
+        if (capacity == table.length()) {
+            return false;
+        }
+        table = rehash(table, capacity);
+        return true;
     }
 
     // ===== INSERTION =====
     public void insert(Scheme scheme) {
         if (scheme == null) return;
 
-        if ((double) size / capacity >= LOAD_FACTOR_THRESHOLD) {
-            resize();
-        }
+        synchronized (writeLock) {
+            int slot = find(table, scheme.getName(), scheme.getNameHash());
+            if (slot >= 0) {
+                System.out.println("Scheme deja existant: " + scheme.getName());
+                return;
+            }
+
+            scheme.compile();
+            if (ensureCapacity(1)) {
+                slot = find(table, scheme.getName(), scheme.getNameHash());
+            }
 
-        int index = hash(scheme.getName());
+            // Une case vide qui se remplit ne gêne aucun sondage en cours
+            table.setRelease(-slot - 1, scheme);
+            size++;
+            published();
 
-        if (table[index] == null) {
-            table[index] = new LinkedList<>();
+            for (LexiconListener listener : listeners) {
+                listener.schemeInserted(scheme);
+            }
         }
+    }
 
-        // Vérifier si existe déjà
-        for (Scheme s : table[index]) {
-            if (s.getName().equals(scheme.getName())) {
-                System.out.println("Scheme deja existant: " + scheme.getName());
-                return;
+    // Insertion d'un lot : la table est dimensionnée une seule fois
+    public void insertAll(Collection<Scheme> batch) {
+        if (batch == null || batch.isEmpty()) return;
+
+        synchronized (writeLock) {
+            ensureCapacity(batch.size());
+
+            List<Scheme> added = new ArrayList<>(batch.size());
+            for (Scheme scheme : batch) {
+                if (scheme == null) continue;
+
+                int slot = find(table, scheme.getName(), scheme.getNameHash());
+                if (slot >= 0) {
+                    System.out.println("Scheme deja existant: " + scheme.getName());
+                    continue;
+                }
+
+                scheme.compile();
+                table.setRelease(-slot - 1, scheme);
+                added.add(scheme);
+                size++;
+            }
+            if (added.isEmpty()) return;
+            published();
+
+            for (Scheme scheme : added) {
+                for (LexiconListener listener : listeners) {
+                    listener.schemeInserted(scheme);
+                }
             }
         }
+    }
+
+    // ===== REMPLACEMENT =====
+    // Remplace tout le contenu par un nouveau tableau publié d'un coup.
+    // Un schème dont le pattern n'a pas changé garde son objet : les
+    // observateurs peuvent le reconnaître dans les deux listes.
+    // Les observateurs préparent d'abord leurs structures à partir de la
+    // nouvelle liste, sans rien publier ; la table puis leurs structures
+    // sont ensuite publiées à la suite. Entre les deux, leur version ne
+    // correspond plus à getVersion() et le moteur ne les utilise pas.
+    public void replaceAll(Collection<Scheme> fresh) {
+        synchronized (writeLock) {
+            List<Scheme> oldSchemes = getAllSchemes();
+            AtomicReferenceArray<Scheme> current = table;
+            int capacity = tableSizeFor((int) Math.ceil(fresh.size() / LOAD_FACTOR_THRESHOLD) + 1);
+            AtomicReferenceArray<Scheme> replaced = new AtomicReferenceArray<>(capacity);
+            int count = 0;
+
+            for (Scheme scheme : fresh) {
+                if (scheme == null) continue;
 
-        table[index].add(scheme);
-        size++;
+                int index = find(replaced, scheme.getName(), scheme.getNameHash());
+                if (index >= 0) {
+                    System.out.println("Scheme deja existant: " + scheme.getName());
+                    continue;
+                }
+
+                int slot = find(current, scheme.getName(), scheme.getNameHash());
+                Scheme old = slot >= 0 ? current.get(slot) : null;
+                if (old != null && old.getPattern().equals(scheme.getPattern())) {
+                    replaced.set(-index - 1, old);
+                } else {
+                    scheme.compile();
+                    replaced.set(-index - 1, scheme);
+                }
+                count++;
+            }
+
+            List<Scheme> newSchemes = collect(replaced);
+            List<Runnable> commits = new ArrayList<>(listeners.size());
+            for (LexiconListener listener : listeners) {
+                commits.add(listener.prepareSchemesReplaced(oldSchemes, newSchemes));
+            }
+
+            table = replaced;
+            size = count;
+            published();
+            schemes = new SchemeList(version.get(), newSchemes);
+
+            for (Runnable commit : commits) {
+                commit.run();
+            }
+        }
     }
 
     // ===== RECHERCHE =====
+    // Un succès est toujours sûr ; un échec n'est retenu que si aucune
+    // suppression n'a croisé le sondage
     public Scheme search(String name) {
         if (name == null) return null;
 
-        int index = hash(name);
-
-        if (table[index] != null) {
-            for (Scheme s : table[index]) {
-                if (s.getName().equals(name)) {
+        int hash = Scheme.hashName(name);
+        while (true) {
+            int before = version.get();
+            AtomicReferenceArray<Scheme> current = table;
+            int slot = find(current, name, hash);
+            if (slot >= 0) {
+                Scheme s = current.get(slot);
+                if (s != null && s.getNameHash() == hash && s.getName().equals(name)) {
                     return s;
                 }
+            } else if ((before & 1) == 0 && version.get() == before) {
+                return null;
             }
+            Thread.onSpinWait();
         }
-
-        return null;
     }
 
     // ===== MODIFICATION =====
+    // Le schème est remplacé par un nouvel objet dans sa case : les analyses
+    // en cours qui tiennent l'ancien continuent avec l'ancien pattern
     public boolean modify(String name, String newPattern) {
-        Scheme scheme = search(name);
-        if (scheme != null) {
-            scheme.setPattern(newPattern);
+        if (name == null) return false;
+
+        synchronized (writeLock) {
+            int slot = find(table, name, Scheme.hashName(name));
+            if (slot < 0) {
+                return false;
+            }
+
+            Scheme old = table.get(slot);
+            Scheme updated = new Scheme(old.getName(), newPattern);
+            updated.compile();
+
+            table.setRelease(slot, updated);
+            published();
+
+            for (LexiconListener listener : listeners) {
+                listener.schemeModified(old, updated);
+            }
             return true;
         }
-        return false;
     }
 
     // ===== SUPPRESSION =====
     public boolean delete(String name) {
         if (name == null) return false;
 
-        int index = hash(name);
+        synchronized (writeLock) {
+            int slot = find(table, name, Scheme.hashName(name));
+            if (slot < 0) {
+                return false;
+            }
 
-        if (table[index] != null) {
-            for (Scheme s : table[index]) {
-                if (s.getName().equals(name)) {
-                    table[index].remove(s);
-                    size--;
-                    return true;
-                }
+            Scheme removed = table.get(slot);
+            beginShift();
+            removeAt(table, slot);
+            size--;
+            endShift();
+
+            for (LexiconListener listener : listeners) {
+                listener.schemeDeleted(removed);
             }
+            return true;
         }
+    }
 
-        return false;
+    // Vide la case puis ramène les éléments suivants de la même séquence de sondage
+    private static void removeAt(AtomicReferenceArray<Scheme> table, int hole) {
+        int mask = table.length() - 1;
+        table.set(hole, null);
+
+        int index = hole;
+        while (true) {
+            index = (index + 1) & mask;
+            Scheme s = table.get(index);
+            if (s == null) {
+                return;
+            }
+
+            int home = s.getNameHash() & mask;
+            // Déplaçable si sa case d'origine n'est pas dans l'intervalle circulaire ]hole, index]
+            boolean movable = hole <= index
+                    ? (home <= hole || home > index)
+                    : (home <= hole && home > index);
+            if (movable) {
+                table.set(hole, s);
+                table.set(index, null);
+                hole = index;
+            }
+        }
     }
 
     // ===== AFFICHAGE =====
     public void displayAll() {
+        List<Scheme> all = getAllSchemes();
         System.out.println("=== Schemes stockes ===");
-        for (LinkedList<Scheme> bucket : table) {
-            if (bucket != null) {
-                for (Scheme s : bucket) {
-                    System.out.println(s);
-                }
-            }
+        for (Scheme s : all) {
+            System.out.println(s);
         }
-        System.out.println("Total: " + size + " schemes");
+        System.out.println("Total: " + all.size() + " schemes");
     }
 
     // ===== RÉCUPÉRATION LISTE =====
+    // Liste non modifiable, construite une fois par version de la table et
+    // partagée jusqu'à l'écriture suivante
     public List<Scheme> getAllSchemes() {
-        List<Scheme> result = new ArrayList<>();
+        while (true) {
+            int before = version.get();
+            SchemeList cached = schemes;
+            if (cached != null && cached.version == before) {
+                return cached.list;
+            }
+            if ((before & 1) == 0) {
+                List<Scheme> built = collect(table);
+                if (version.get() == before) {
+                    schemes = new SchemeList(before, built);
+                    return built;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
 
-        for (LinkedList<Scheme> bucket : table) {
-            if (bucket != null) {
-                result.addAll(bucket);
+    private static List<Scheme> collect(AtomicReferenceArray<Scheme> table) {
+        List<Scheme> list = new ArrayList<>();
+        for (int i = 0; i < table.length(); i++) {
+            Scheme s = table.get(i);
+            if (s != null) {
+                list.add(s);
             }
         }
+        return Collections.unmodifiableList(list);
+    }
+
+    // Change à chaque écriture ; les structures dérivées retiennent la
+    // version qu'elles reflètent
+    public int getVersion() {
+        return version.get();
+    }
+
+    // ===== OBSERVATEURS =====
+    public void addListener(LexiconListener listener) {
+        listeners.add(listener);
+    }
 
-        return result;
+    public void removeListener(LexiconListener listener) {
+        listeners.remove(listener);
     }
 
     public boolean isEmpty() {
-        return size == 0;
+        return size() == 0;
     }
 
     public int size() {
+        version.get();
         return size;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,63 @@
+package structures;
+
+import models.Root;
+import models.Scheme;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Observateur des modifications du lexique (racines et schèmes).
+ * Permet aux structures dérivées (index, caches...) de rester à jour
+ * lorsque l'arbre AVL ou la table des schèmes changent.
+ */
+public interface LexiconListener {
+
+    default void rootInserted(Root root) {
+    }
+
+    // Lot de racines insérées ensemble (AVLTree.insertAll). Par défaut : une à une
+    default void rootsInserted(List<Root> roots) {
+        for (Root root : roots) {
+            rootInserted(root);
+        }
+    }
+
+    default void schemeInserted(Scheme scheme) {
+    }
+
+    // Le schème modifié est remplacé par un nouvel objet
+    default void schemeModified(Scheme oldScheme, Scheme newScheme) {
+    }
+
+    default void schemeDeleted(Scheme scheme) {
+    }
+
+    // Toute la table a été remplacée (rechargement) ; les schèmes inchangés
+    // sont les mêmes objets dans les deux listes. Par défaut : suppressions
+    // puis insertions une à une
+    default void schemesReplaced(List<Scheme> oldSchemes, List<Scheme> newSchemes) {
+        Set<Scheme> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+        kept.addAll(newSchemes);
+        for (Scheme scheme : oldSchemes) {
+            if (!kept.remove(scheme)) {
+                schemeDeleted(scheme);
+            }
+        }
+        for (Scheme scheme : newSchemes) {
+            if (kept.contains(scheme)) {
+                schemeInserted(scheme);
+            }
+        }
+    }
+
+    // Rechargement en deux temps : appelé avant la publication de la
+    // nouvelle table pour construire à côté ce qui en dépend ; l'action
+    // retournée, exécutée juste après la publication, ne fait que publier.
+    // Par défaut : schemesReplaced, une fois la table publiée
+    default Runnable prepareSchemesReplaced(List<Scheme> oldSchemes, List<Scheme> newSchemes) {
+        return () -> schemesReplaced(oldSchemes, newSchemes);
+    }
+}
@@ -0,0 +1,209 @@
+package structures;
+
+import models.Root;
+import utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Index AVL des racines sur clés entières (voir Utils.packRoot).
+ * Les noeuds sont stockés dans des tableaux primitifs parallèles
+ * (clé, fils gauche, fils droit, hauteur) : pas d'objet Node par racine,
+ * des comparaisons d'entiers et des accès mémoire contigus.
+ * Même API que AVLTree pour search / insert / parcours infixe.
+ * Non synchronisé : à protéger par l'appelant en cas d'écritures concurrentes.
+ */
+public class PackedRootIndex {
+
+    private static final int NIL = -1;
+    // Hauteur maximale d'un AVL de 2^31 noeuds
+    private static final int MAX_HEIGHT = 48;
+
+    private int[] keys;
+    private int[] left;
+    private int[] right;
+    private byte[] heights;
+    private Root[] values;
+
+    private int root = NIL;
+    private int size;
+
+
+    public PackedRootIndex() {
+        this(16);
+    }
+
+    public PackedRootIndex(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        keys = new int[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        heights = new byte[capacity];
+        values = new Root[capacity];
+    }
+
+    // ========== INSERTION ==========
+
+    // Retourne false si la racine existe déjà ou n'est pas codable sur 24 bits
+    public boolean insert(Root r) {
+        if (r == null) return false;
+
+        int key = Utils.packRoot(r.getLetters());
+        if (key < 0) return false;
+
+        int[] path = new int[MAX_HEIGHT];
+        int depth = 0;
+        int current = root;
+        while (current != NIL) {
+            int k = keys[current];
+            if (key == k) {
+                return false;
+            }
+            path[depth++] = current;
+            current = key < k ? left[current] : right[current];
+        }
+
+        int node = allocate(key, r);
+
+        // Remontée : rattachement puis rééquilibrage de chaque ancêtre
+        int child = node;
+        for (int i = depth - 1; i >= 0; i--) {
+            int parent = path[i];
+            if (key < keys[parent]) {
+                left[parent] = child;
+            } else {
+                right[parent] = child;
+            }
+            update(parent);
+            child = balance(parent);
+        }
+        root = child;
+        return true;
+    }
+
+    private int allocate(int key, Root r) {
+        if (size == keys.length) {
+            int capacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+            heights = Arrays.copyOf(heights, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        int node = size++;
+        keys[node] = key;
+        left[node] = NIL;
+        right[node] = NIL;
+        heights[node] = 1;
+        values[node] = r;
+        return node;
+    }
+
+    // ========== ÉQUILIBRAGE ==========
+
+    private int height(int node) {
+        return node == NIL ? 0 : heights[node];
+    }
+
+    private void update(int node) {
+        heights[node] = (byte) (1 + Math.max(height(left[node]), height(right[node])));
+    }
+
+    private int getBalance(int node) {
+        return height(left[node]) - height(right[node]);
+    }
+
+    private int rotateRight(int y) {
+        int x = left[y];
+        left[y] = right[x];
+        right[x] = y;
+        update(y);
+        update(x);
+        return x;
+    }
+
+    private int rotateLeft(int x) {
+        int y = right[x];
+        right[x] = left[y];
+        left[y] = x;
+        update(x);
+        update(y);
+        return y;
+    }
+
+    private int balance(int node) {
+        int balance = getBalance(node);
+
+        if (balance > 1) {
+            if (getBalance(left[node]) < 0) {
+                left[node] = rotateLeft(left[node]);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (getBalance(right[node]) > 0) {
+                right[node] = rotateRight(right[node]);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    // ========== RECHERCHE ==========
+
+    public Root search(String letters) {
+        return search(Utils.packRoot(letters));
+    }
+
+    public Root search(int key) {
+        if (key < 0) return null;
+
+        int node = root;
+        while (node != NIL) {
+            int k = keys[node];
+            if (key == k) {
+                return values[node];
+            }
+            node = key < k ? left[node] : right[node];
+        }
+        return null;
+    }
+
+    public boolean contains(String letters) {
+        return search(letters) != null;
+    }
+
+    // ========== PARCOURS ==========
+
+    public ArrayList<Root> getAllRoots() {
+        ArrayList<Root> roots = new ArrayList<>(size);
+        int[] stack = new int[MAX_HEIGHT];
+        int top = 0;
+        int node = root;
+
+        while (node != NIL || top > 0) {
+            while (node != NIL) {
+                stack[top++] = node;
+                node = left[node];
+            }
+            node = stack[--top];
+            roots.add(values[node]);
+            node = right[node];
+        }
+        return roots;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getMaxHeight() {
+        return height(root);
+    }
+}
@@ -0,0 +1,60 @@
+package structures;
+
+import utils.Utils;
+
+/**
+ * Ensemble de bits couvrant tout l'espace des racines codées sur 24 bits
+ * (Utils.packRoot). Les 2^24 bits sont découpés en pages de 4096 bits
+ * (512 octets) allouées à la première racine qui y tombe : la mémoire
+ * suit le nombre de racines (quelques Ko pour un petit arbre), au plus
+ * 2 Mo quand tout l'espace est occupé.
+ * Répond à "cette racine existe-t-elle ?" en quelques instructions.
+ */
+public class RootBitmap {
+
+    private static final int KEY_SPACE = 1 << 24;
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_WORDS = (1 << PAGE_BITS) >>> 6;
+    private static final int PAGES = KEY_SPACE >>> PAGE_BITS;
+
+    private long[][] pages;
+    private int cardinality;
+
+
+    public void add(int key) {
+        if (key < 0 || key >= KEY_SPACE) return;
+
+        if (pages == null) {
+            pages = new long[PAGES][];
+        }
+        long[] page = pages[key >>> PAGE_BITS];
+        if (page == null) {
+            page = new long[PAGE_WORDS];
+            pages[key >>> PAGE_BITS] = page;
+        }
+        long mask = 1L << key;
+        int index = (key >>> 6) & (PAGE_WORDS - 1);
+        if ((page[index] & mask) == 0) {
+            page[index] |= mask;
+            cardinality++;
+        }
+    }
+
+    public boolean contains(int key) {
+        long[][] p = pages;
+        if (p == null || key < 0 || key >= KEY_SPACE) {
+            return false;
+        }
+        long[] page = p[key >>> PAGE_BITS];
+        return page != null && (page[(key >>> 6) & (PAGE_WORDS - 1)] & (1L << key)) != 0;
+    }
+
+    public boolean contains(CharSequence letters) {
+        return contains(Utils.packRoot(letters));
+    }
+
+    // Nombre de racines présentes
+    public int cardinality() {
+        return cardinality;
+    }
+}
@@ -1,10 +1,25 @@
 package test;
 
+import engine.MorphologyEngine;
+import io.DerivativeLog;
+import io.SnapshotStore;
 import models.Root;
 import models.Node;
+import models.Scheme;
+import models.ValidationResult;
 import structures.AVLTree;
+import structures.HashTableSchemes;
+import utils.ArabicNormalizer;
 import utils.Utils;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 public class TestAVL {
     
     public static void main(String[] args) {
@@ -19,6 +34,15 @@ public class TestAVL {
         testAVLSearch();
         testAVLBalance();
         testAVLDisplay();
+        testAVLOrderStatistics();
+        testDiacritizedScheme();
+        testAVLBulkInsert();
+        testSchemeTableDeletion();
+        testSnapshot();
+        testDerivativeLog();
+        testFormFilter();
+        testArabicNormalizer();
+        testPatternMatcher();
         
         System.out.println("\n=================================");
         System.out.println("   TESTS TERMINÉS");
@@ -170,4 +194,383 @@ public class TestAVL {
         
         System.out.println("✓ Tests Affichage terminés");
     }
+    
+    public static void testAVLOrderStatistics() {
+        System.out.println("\n--- TEST 8: Rang et sélection AVL ---");
+        
+        AVLTree tree = new AVLTree();
+        tree.insert(new Root("كتب"));
+        tree.insert(new Root("درس"));
+        tree.insert(new Root("قال"));
+        tree.insert(new Root("فعل"));
+        tree.insert(new Root("جلس"));
+        
+        System.out.println("Taille: " + tree.size());
+        for (int k = 0; k < tree.size(); k++) {
+            Root r = tree.select(k);
+            System.out.println("select(" + k + ") = " + r.getLetters() + ", rank = " + tree.rank(r.getLetters()));
+        }
+        System.out.println("select(5) hors limites: " + (tree.select(5) == null));
+        System.out.println("rank(شرب) (absente): " + tree.rank("شرب"));
+        
+        System.out.print("Page [1, 4): ");
+        for (Root r : tree.getRoots(1, 3)) {
+            System.out.print(r.getLetters() + " ");
+        }
+        System.out.println();
+        
+        System.out.println("✓ Tests Rang et sélection terminés");
+    }
+    
+    public static void testDiacritizedScheme() {
+        System.out.println("\n--- TEST 9: Schème avec harakat ---");
+        
+        AVLTree tree = new AVLTree();
+        tree.insert(new Root("كتب"));
+        tree.insert(new Root("خرج"));
+        HashTableSchemes schemes = new HashTableSchemes(16);
+        schemes.insert(new Scheme("فَعَّل", "C1+َ+C2+ّ+َ+C3"));
+        MorphologyEngine engine = new MorphologyEngine();
+        
+        // Une forme générée avec harakat, puis normalisée comme par le serveur
+        Root root = tree.search("كتب").getRoot();
+        String generated = engine.generate(root, schemes.search("فَعَّل"));
+        String normalized = Utils.normalizeArabicText(generated);
+        System.out.println("Généré: " + generated + ", normalisé: " + normalized);
+        System.out.println("validate(normalisé): " + engine.validate(normalized, root, schemes).isValid());
+        System.out.println("decompose(généré): " + engine.decomposeWord(generated, tree, schemes));
+        
+        // Sans déduction et avec l'index, seule la correspondance exacte compte
+        engine.setHeuristicFallback(false);
+        engine.enableIndex(tree, schemes);
+        System.out.println("Index, decompose(normalisé): " + engine.decomposeWord(normalized, tree, schemes));
+        System.out.println("Index, decompose(خرَج): " + engine.decomposeWord("خرَج", tree, schemes));
+        engine.disableIndex();
+        
+        System.out.println("✓ Tests Schème avec harakat terminés");
+    }
+    
+    public static void testAVLBulkInsert() {
+        System.out.println("\n--- TEST 10: Insertion en masse AVL ---");
+        
+        String letters = "بتثجحخدذرزسشصضطظعغفقكلمن";
+        List<Root> batch = new ArrayList<>();
+        for (int i = 0; i < letters.length(); i++) {
+            for (int j = 0; j < letters.length(); j++) {
+                batch.add(new Root("" + letters.charAt(i) + letters.charAt(j) + "ل"));
+            }
+        }
+        batch.add(new Root("كتل")); // doublon
+        
+        AVLTree tree = new AVLTree();
+        tree.insertAll(batch);
+        System.out.println("Taille: " + tree.size() + " (attendu " + letters.length() * letters.length() + ")");
+        System.out.println("Arbre équilibré: " + tree.isBalanced() + ", hauteur: " + tree.getMaxHeight());
+        
+        // Second lot assez grand pour être fusionné avec l'arbre existant
+        List<Root> second = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            for (int j = 0; j < letters.length(); j++) {
+                second.add(new Root("" + letters.charAt(i) + letters.charAt(j) + "م"));
+            }
+        }
+        second.add(new Root("بتل")); // déjà présente
+        tree.insertAll(second);
+        System.out.println("Après fusion: " + tree.size() + " (attendu " + (letters.length() * letters.length() + 5 * letters.length()) + ")");
+        System.out.println("Arbre équilibré: " + tree.isBalanced());
+        
+        // Tailles des sous-arbres : rank(select(k)) doit redonner k
+        boolean sizesOk = true;
+        for (int k = 0; k < tree.size(); k++) {
+            if (tree.rank(tree.select(k).getLetters()) != k) {
+                sizesOk = false;
+            }
+        }
+        System.out.println("Tailles des sous-arbres cohérentes: " + sizesOk);
+        
+        System.out.println("✓ Tests Insertion en masse terminés");
+    }
+    
+    public static void testSchemeTableDeletion() {
+        System.out.println("\n--- TEST 11: Table des schèmes, sondage et suppression ---");
+        
+        // Capacité minimale : redimensionnements et séquences de sondage longues
+        HashTableSchemes schemes = new HashTableSchemes(2);
+        for (int i = 0; i < 200; i++) {
+            schemes.insert(new Scheme("s" + i, "C1+C2+C3"));
+        }
+        System.out.println("Taille: " + schemes.size());
+        
+        // Suppression d'un schème sur trois : les suivants de chaque séquence sont ramenés
+        int deleted = 0;
+        for (int i = 0; i < 200; i += 3) {
+            if (schemes.delete("s" + i)) {
+                deleted++;
+            }
+        }
+        System.out.println("Supprimés: " + deleted + ", taille: " + schemes.size());
+        System.out.println("Suppression d'un absent: " + schemes.delete("s0"));
+        
+        int found = 0;
+        int missing = 0;
+        for (int i = 0; i < 200; i++) {
+            Scheme s = schemes.search("s" + i);
+            if (i % 3 == 0 ? s != null : s == null || !s.getName().equals("s" + i)) {
+                missing++;
+            } else if (s != null) {
+                found++;
+            }
+        }
+        System.out.println("Trouvés: " + found + ", erreurs de recherche: " + missing);
+        System.out.println("Liste cohérente: " + (schemes.getAllSchemes().size() == schemes.size()));
+        
+        // Les cases libérées sont réutilisables
+        schemes.insert(new Scheme("s0", "م+C1+C2+C3"));
+        System.out.println("Réinsertion: " + schemes.search("s0").getPattern() + ", taille: " + schemes.size());
+        
+        System.out.println("✓ Tests Table des schèmes terminés");
+    }
+    
+    public static void testSnapshot() {
+        System.out.println("\n--- TEST 12: Instantané binaire ---");
+        
+        Path file = Path.of(System.getProperty("java.io.tmpdir"), "test-avl.snap");
+        try {
+            AVLTree tree = new AVLTree();
+            tree.insert(new Root("كتب"));
+            tree.insert(new Root("درس"));
+            tree.insert(new Root("قال"));
+            tree.search("كتب").getRoot().addDerivative("كاتب");
+            tree.search("كتب").getRoot().addDerivative("مكتوب");
+            HashTableSchemes schemes = new HashTableSchemes(16);
+            schemes.insert(new Scheme("فاعل", "C1+ا+C2+C3"));
+            schemes.insert(new Scheme("مفعول", "م+C1+C2+و+C3"));
+            
+            System.out.println("Écriture: " + SnapshotStore.save(file, tree, schemes));
+            
+            AVLTree loadedTree = new AVLTree();
+            HashTableSchemes loadedSchemes = new HashTableSchemes(16);
+            System.out.println("Relecture: " + SnapshotStore.load(file, loadedTree, loadedSchemes));
+            System.out.println("Racines: " + loadedTree.size() + ", schèmes: " + loadedSchemes.size());
+            System.out.println("Dérivés de كتب: " + loadedTree.search("كتب").getRoot().getValidatedDerivatives());
+            System.out.println("Type de قال: " + loadedTree.search("قال").getRoot().getType());
+            System.out.println("Pattern de مفعول: " + loadedSchemes.search("مفعول").getPattern());
+            
+            // Un octet des données modifié : la somme de contrôle ne correspond plus
+            byte[] bytes = Files.readAllBytes(file);
+            bytes[bytes.length - 1] ^= 1;
+            Files.write(file, bytes);
+            AVLTree rejected = new AVLTree();
+            System.out.println("CRC invalide accepté: " + SnapshotStore.load(file, rejected, new HashTableSchemes(16))
+                    + ", racines chargées: " + rejected.size());
+            
+            // En-tête d'un autre format
+            bytes[bytes.length - 1] ^= 1;
+            bytes[0] ^= 1;
+            Files.write(file, bytes);
+            System.out.println("Magic invalide accepté: " + SnapshotStore.load(file, new AVLTree(), new HashTableSchemes(16)));
+            
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.out.println("Erreur: " + e.getMessage());
+        }
+        
+        System.out.println("✓ Tests Instantané terminés");
+    }
+    
+    public static void testDerivativeLog() {
+        System.out.println("\n--- TEST 13: Journal des dérivés ---");
+        
+        Path file = Path.of(System.getProperty("java.io.tmpdir"), "test-avl.log");
+        Path snapshot = Path.of(System.getProperty("java.io.tmpdir"), "test-avl-log.snap");
+        try {
+            Files.deleteIfExists(file);
+            
+            AVLTree tree = new AVLTree();
+            tree.insert(new Root("كتب"));
+            tree.insert(new Root("درس"));
+            HashTableSchemes schemes = new HashTableSchemes(16);
+            
+            // close écrit les entrées en attente
+            DerivativeLog log = DerivativeLog.open(file, snapshot, tree, schemes);
+            log.append(tree.search("كتب").getRoot(), "كاتب");
+            log.append(tree.search("كتب").getRoot(), "مكتوب");
+            log.append(tree.search("درس").getRoot(), "مدرسة");
+            log.close();
+            long written = Files.size(file);
+            System.out.println("Journal écrit: " + (written > 0));
+            
+            // Arrêt pendant une écriture : un enregistrement incomplet en fin de fichier
+            Files.write(file, new byte[] { 0, 0, 0, 40, 1, 2, 3 }, StandardOpenOption.APPEND);
+            
+            AVLTree replayed = new AVLTree();
+            replayed.insert(new Root("كتب"));
+            replayed.insert(new Root("درس"));
+            DerivativeLog.open(file, snapshot, replayed, schemes).close();
+            System.out.println("Dérivés de كتب: " + replayed.search("كتب").getRoot().getValidatedDerivatives());
+            System.out.println("Dérivés de درس: " + replayed.search("درس").getRoot().getValidatedDerivatives());
+            System.out.println("Fin incomplète tronquée: " + (Files.size(file) == written));
+            
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.out.println("Erreur: " + e.getMessage());
+        }
+        
+        System.out.println("✓ Tests Journal terminés");
+    }
+    
+    public static void testFormFilter() {
+        System.out.println("\n--- TEST 14: Filtre des formes ---");
+        
+        AVLTree tree = new AVLTree();
+        tree.insert(new Root("كتب"));
+        tree.insert(new Root("درس"));
+        HashTableSchemes schemes = new HashTableSchemes(16);
+        schemes.insert(new Scheme("فاعل", "C1+ا+C2+C3"));
+        schemes.insert(new Scheme("مفعول", "م+C1+C2+و+C3"));
+        MorphologyEngine engine = new MorphologyEngine();
+        engine.enableFilter(tree, schemes);
+        System.out.println("Formes absentes après construction: " + missingForms(engine, tree, schemes));
+        
+        // Chaque modification du lexique doit garder toutes les formes (aucun faux négatif)
+        schemes.insert(new Scheme("فَعَّل", "C1+َ+C2+ّ+َ+C3"));
+        System.out.println("Formes absentes après ajout d'un schème: " + missingForms(engine, tree, schemes));
+        schemes.modify("فاعل", "C1+ا+C2+ِ+C3");
+        System.out.println("Formes absentes après modification: " + missingForms(engine, tree, schemes));
+        schemes.delete("مفعول");
+        System.out.println("Formes absentes après suppression: " + missingForms(engine, tree, schemes));
+        
+        // Assez de racines pour dépasser la capacité prévue et forcer une reconstruction
+        String letters = "بتثجحخدذرزسشصضطظ";
+        for (int i = 0; i < letters.length(); i++) {
+            for (int j = 0; j < letters.length(); j++) {
+                tree.insert(new Root("" + letters.charAt(i) + letters.charAt(j) + "ل"));
+            }
+        }
+        System.out.println("Formes absentes après ajout de racines: " + missingForms(engine, tree, schemes));
+        
+        // Mot rejeté par le filtre : invalide sans déduction
+        engine.setHeuristicFallback(false);
+        Root root = tree.search("كتب").getRoot();
+        System.out.println("Filtre, ككتتبب: " + engine.getFilter().mightContain("ككتتبب"));
+        System.out.println("validate(ككتتبب): " + engine.validate("ككتتبب", root, schemes).isValid());
+        System.out.println("validate(كاتِب): " + engine.validate("كاتِب", root, schemes).isValid());
+        engine.disableFilter();
+        
+        System.out.println("✓ Tests Filtre terminés");
+    }
+    
+    public static void testArabicNormalizer() {
+        System.out.println("\n--- TEST 15: Normalisation arabe ---");
+        
+        System.out.println("DIACRITICS(مَدْرَسَةٌ): " + ArabicNormalizer.DIACRITICS.normalize("مَدْرَسَةٌ"));
+        System.out.println("FULL(مَدْرَسَةٌ): " + ArabicNormalizer.FULL.normalize("مَدْرَسَةٌ"));
+        System.out.println("FULL(إِلَى): " + ArabicNormalizer.FULL.normalize("إِلَى"));
+        System.out.println("DIACRITICS(أَكَلَ): " + ArabicNormalizer.DIACRITICS.normalize("أَكَلَ"));
+        
+        // Mot inchangé : même instance, sans copie
+        String plain = "كتاب";
+        System.out.println("Même instance si inchangé: " + (ArabicNormalizer.DIACRITICS.normalize(plain) == plain));
+        
+        // Caractères hors du bloc arabe conservés, NUL compris
+        String withNul = "كَ\u0000تب";
+        String normalized = ArabicNormalizer.DIACRITICS.normalize(withNul);
+        System.out.println("NUL conservé: " + normalized.equals("ك\u0000تب") + ", longueur: " + normalized.length());
+        
+        char[] buffer = "xكِتَابٌx".toCharArray();
+        int end = ArabicNormalizer.DIACRITICS.normalize(buffer, 1, buffer.length - 1);
+        System.out.println("Sur place: " + new String(buffer, 1, end - 1) + " (fin " + end + ")");
+        
+        StringBuilder sb = new StringBuilder("> ");
+        ArabicNormalizer.FULL.normalize("ٱلْمَدْرَسَة", 0, "ٱلْمَدْرَسَة".length(), sb);
+        System.out.println("StringBuilder: " + sb);
+        
+        System.out.println("✓ Tests Normalisation terminés");
+    }
+    
+    public static void testPatternMatcher() {
+        System.out.println("\n--- TEST 16: Automate des schèmes ---");
+        
+        AVLTree tree = new AVLTree();
+        for (String letters : new String[] { "كتب", "درس", "خرج", "قال", "وعد", "سأل" }) {
+            tree.insert(new Root(letters));
+        }
+        HashTableSchemes schemes = new HashTableSchemes(16);
+        schemes.insert(new Scheme("فاعل", "C1+ا+C2+C3"));
+        schemes.insert(new Scheme("مفعول", "م+C1+C2+و+C3"));
+        MorphologyEngine plain = new MorphologyEngine();
+        MorphologyEngine matching = new MorphologyEngine();
+        matching.enableMatcher(schemes);
+        System.out.println("Écarts avec le parcours: " + matcherDifferences(plain, matching, tree, schemes)
+                + ", à jour: " + matching.getMatcher().isCurrent());
+        
+        // L'automate suit chaque modification de la table (sinon le moteur l'ignore)
+        schemes.insert(new Scheme("فَعَّل", "C1+َ+C2+ّ+َ+C3"));
+        System.out.println("Écarts après ajout d'un schème: " + matcherDifferences(plain, matching, tree, schemes)
+                + ", à jour: " + matching.getMatcher().isCurrent());
+        schemes.modify("فاعل", "ت+C1+ا+C2+C3");
+        System.out.println("Écarts après modification: " + matcherDifferences(plain, matching, tree, schemes)
+                + ", à jour: " + matching.getMatcher().isCurrent());
+        schemes.delete("مفعول");
+        System.out.println("Écarts après suppression: " + matcherDifferences(plain, matching, tree, schemes)
+                + ", à jour: " + matching.getMatcher().isCurrent());
+        
+        // Sans déduction, seules les correspondances exactes restent
+        plain.setHeuristicFallback(false);
+        matching.setHeuristicFallback(false);
+        System.out.println("Écarts sans déduction: " + matcherDifferences(plain, matching, tree, schemes));
+        System.out.println("Automate, decompose(تكاتب): " + matching.decomposeWord("تكاتب", tree, schemes));
+        matching.disableMatcher();
+        
+        System.out.println("✓ Tests Automate terminés");
+    }
+    
+    // Mots générés (et quelques mots hors lexique) dont la décomposition diffère
+    // entre le parcours de l'arbre et l'automate
+    private static int matcherDifferences(MorphologyEngine plain, MorphologyEngine matching,
+                                          AVLTree tree, HashTableSchemes schemes) {
+        List<String> words = new ArrayList<>(List.of("ككتتبب", "مدرسة", "استخرج", "تب"));
+        for (Root root : tree.getAllRoots()) {
+            List<Scheme> all = new ArrayList<>(schemes.getAllSchemes());
+            for (Map.Entry<String, String> entry : root.getAvailableSchemes().entrySet()) {
+                all.add(new Scheme(entry.getKey(), entry.getValue()));
+            }
+            for (Scheme scheme : all) {
+                words.add(plain.generate(root, scheme));
+            }
+        }
+        
+        int differences = 0;
+        for (String word : words) {
+            ValidationResult expected = plain.decomposeWord(word, tree, schemes);
+            ValidationResult actual = matching.decomposeWord(word, tree, schemes);
+            if (!describe(expected).equals(describe(actual))) {
+                System.out.println("  " + word + ": " + expected + " / " + actual);
+                differences++;
+            }
+        }
+        return differences;
+    }
+    
+    private static String describe(ValidationResult result) {
+        return result.isValid() ? result + " " + result.getScheme().getPattern() : result.toString();
+    }
+    
+    // Formes générées (schèmes du type de chaque racine et de la table) absentes du filtre
+    private static int missingForms(MorphologyEngine engine, AVLTree tree, HashTableSchemes schemes) {
+        int missing = 0;
+        for (Root root : tree.getAllRoots()) {
+            List<Scheme> all = new ArrayList<>(schemes.getAllSchemes());
+            for (Map.Entry<String, String> entry : root.getAvailableSchemes().entrySet()) {
+                all.add(new Scheme(entry.getKey(), entry.getValue()));
+            }
+            for (Scheme scheme : all) {
+                String form = ArabicNormalizer.DIACRITICS.normalize(engine.generate(root, scheme));
+                if (!engine.getFilter().mightContain(form)) {
+                    missing++;
+                }
+            }
+        }
+        return missing;
+    }
 }
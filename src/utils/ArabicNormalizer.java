@@ -0,0 +1,113 @@
+package utils;
+
+/**
+ * Normalisation des mots arabes par table, en une seule passe et sans
+ * expression régulière : chaque caractère du bloc arabe (U+0600..U+06FF)
+ * est soit conservé, soit supprimé, soit remplacé.
+ *
+ * Toujours : suppression des diacritiques (tanwin, harakat, soukoun,
+ * chadda et signes suscrits/souscrits, U+064B..U+065F).
+ * En option :
+ *   - unifyAlif    : أ إ آ ٱ  ->  ا
+ *   - unifyEndings : ة -> ه  et  ى -> ي
+ *
+ * Les instances sont immuables et partageables entre threads ; les
+ * variantes char[] et StringBuilder n'allouent rien.
+ */
+public final class ArabicNormalizer {
+
+    private static final char BLOCK_START = '\u0600';
+    private static final char BLOCK_END = '\u06FF';
+
+    public static final ArabicNormalizer DIACRITICS = new ArabicNormalizer(false, false);
+    public static final ArabicNormalizer FULL = new ArabicNormalizer(true, true);
+
+    private final char[] table = new char[BLOCK_END - BLOCK_START + 1];
+    // Caractères supprimés, un bit par caractère du bloc : aucune valeur de
+    // la table n'est réservée, un caractère hors bloc (même NUL) est gardé
+    private final long[] dropped = new long[table.length >>> 6];
+
+
+    public ArabicNormalizer(boolean unifyAlif, boolean unifyEndings) {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (char) (BLOCK_START + i);
+        }
+        for (char c = '\u064B'; c <= '\u065F'; c++) {
+            dropped[(c - BLOCK_START) >>> 6] |= 1L << (c - BLOCK_START);
+        }
+        if (unifyAlif) {
+            set('أ', 'ا');
+            set('إ', 'ا');
+            set('آ', 'ا');
+            set('ٱ', 'ا');
+        }
+        if (unifyEndings) {
+            set('ة', 'ه');
+            set('ى', 'ي');
+        }
+    }
+
+    private void set(char from, char to) {
+        table[from - BLOCK_START] = to;
+    }
+
+    private char map(char c) {
+        return c < BLOCK_START || c > BLOCK_END ? c : table[c - BLOCK_START];
+    }
+
+    private boolean isDropped(char c) {
+        return c >= BLOCK_START && c <= BLOCK_END
+                && (dropped[(c - BLOCK_START) >>> 6] & (1L << (c - BLOCK_START))) != 0;
+    }
+
+    // ========== NORMALISATION ==========
+
+    /**
+     * Normalise buffer[from, to) sur place ; retourne la nouvelle fin
+     * (le texte ne peut que raccourcir).
+     */
+    public int normalize(char[] buffer, int from, int to) {
+        int out = from;
+        for (int i = from; i < to; i++) {
+            char c = buffer[i];
+            if (!isDropped(c)) {
+                buffer[out++] = map(c);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Ajoute text[from, to) normalisé à out. Avec un StringBuilder vidé
+     * (setLength(0)) et réutilisé, une ligne entière se traite sans allocation.
+     */
+    public StringBuilder normalize(CharSequence text, int from, int to, StringBuilder out) {
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (!isDropped(c)) {
+                out.append(map(c));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Texte normalisé ; la même instance si rien ne change (cas courant
+     * d'un mot sans diacritiques), sans aucune copie.
+     */
+    public String normalize(String text) {
+        if (text == null) return null;
+
+        int length = text.length();
+        int first = 0;
+        while (first < length && !isDropped(text.charAt(first)) && map(text.charAt(first)) == text.charAt(first)) {
+            first++;
+        }
+        if (first == length) {
+            return text;
+        }
+
+        char[] buffer = text.toCharArray();
+        return new String(buffer, 0, normalize(buffer, first, length));
+    }
+}
@@ -0,0 +1,126 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogramme log-linéaire (à la HdrHistogram) de valeurs positives :
+ * chaque puissance de 2 est découpée en SUB intervalles égaux, soit une
+ * erreur relative d'au plus 1/SUB sur les percentiles, pour une taille
+ * fixe (quelques Ko) quelle que soit l'étendue des valeurs.
+ * record est sans verrou et sans allocation.
+ */
+public class Histogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB = 1 << SUB_BITS;
+    // Valeurs jusqu'à 2^63 : (63 - SUB_BITS + 1) puissances de 2 après les SUB premières
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB;
+
+    private final String name;
+    private final String unit;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+
+    public Histogram(String name, String unit) {
+        this.name = name;
+        this.unit = unit;
+    }
+
+    // ========== ENREGISTREMENT ==========
+
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    // Valeurs < SUB : une case chacune ; au-delà, SUB cases par puissance de 2
+    private static int bucketOf(long value) {
+        if (value < SUB) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB + (int) (value >>> shift) - SUB;
+    }
+
+    // Plus grande valeur rangée dans la case
+    private static long upperBound(int bucket) {
+        if (bucket < SUB) {
+            return bucket;
+        }
+        int shift = bucket / SUB - 1;
+        long mantissa = SUB + bucket % SUB;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    // ========== LECTURE ==========
+
+    public String getName() {
+        return name;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    // p entre 0 et 100 ; borne haute de la case qui contient le percentile
+    public long getPercentile(double p) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(total * p / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-18s n=%-10d moy=%-10.1f p50=%-8d p90=%-8d p99=%-8d p99.9=%-8d max=%d %s",
+                name, getCount(), getMean(), getPercentile(50), getPercentile(90),
+                getPercentile(99), getPercentile(99.9), getMax(), unit);
+    }
+}
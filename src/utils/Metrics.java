@@ -0,0 +1,133 @@
+package utils;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mesures du moteur : durées de generate / validate / decomposeWord,
+ * profondeur atteinte dans l'arbre, longueur des sondages de la table des
+ * schèmes, redimensionnements et durées de chargement.
+ *
+ * Activées par -Dmorpho.metrics=true. ENABLED est une constante : quand
+ * elle est fausse, le JIT supprime les blocs "if (Metrics.ENABLED)" et
+ * les points de mesure ne coûtent rien.
+ */
+public final class Metrics implements MetricsMXBean {
+
+    public static final boolean ENABLED = Boolean.getBoolean("morpho.metrics");
+
+    public static final Histogram GENERATE = new Histogram("generate", "ns");
+    public static final Histogram VALIDATE = new Histogram("validate", "ns");
+    public static final Histogram DECOMPOSE = new Histogram("decompose", "ns");
+    public static final Histogram TREE_DEPTH = new Histogram("profondeur arbre", "niveaux");
+    public static final Histogram SCHEME_PROBES = new Histogram("sondages schèmes", "cases");
+
+    public static final LongAdder SCHEME_RESIZES = new LongAdder();
+
+    private static final Histogram[] HISTOGRAMS = { GENERATE, VALIDATE, DECOMPOSE, TREE_DEPTH, SCHEME_PROBES };
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+    private static final String[] PERCENTILE_KEYS = { "p50", "p90", "p99", "p99.9" };
+
+    // Dernière durée de chaque chargement (millisecondes), par nom
+    private static final Map<String, Long> LOADS = new ConcurrentSkipListMap<>();
+
+    private static final Metrics INSTANCE = new Metrics();
+    private static final String OBJECT_NAME = "morpho:type=Metrics";
+
+
+    private Metrics() {
+    }
+
+    // ========== ENREGISTREMENT ==========
+
+    // start : valeur de System.nanoTime() au début du chargement
+    public static void recordLoad(String what, long start) {
+        LOADS.put(what, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    // ========== JMX ==========
+
+    public static void register() {
+        if (!ENABLED) return;
+
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, name);
+            }
+        } catch (JMException e) {
+            System.err.println(" Enregistrement JMX des mesures impossible: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return ENABLED;
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> counters = new LinkedHashMap<>();
+        for (Histogram h : HISTOGRAMS) {
+            counters.put(h.getName() + ".count", h.getCount());
+        }
+        counters.put("redimensionnements schèmes", SCHEME_RESIZES.sum());
+        return counters;
+    }
+
+    @Override
+    public Map<String, Long> getHistograms() {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (Histogram h : HISTOGRAMS) {
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                values.put(h.getName() + "." + PERCENTILE_KEYS[i], h.getPercentile(PERCENTILES[i]));
+            }
+            values.put(h.getName() + ".max", h.getMax());
+        }
+        return values;
+    }
+
+    @Override
+    public Map<String, Long> getLoadDurationsMillis() {
+        return new LinkedHashMap<>(LOADS);
+    }
+
+    @Override
+    public String dump() {
+        return dumpText();
+    }
+
+    @Override
+    public void reset() {
+        for (Histogram h : HISTOGRAMS) {
+            h.reset();
+        }
+        SCHEME_RESIZES.reset();
+        LOADS.clear();
+    }
+
+    // ========== AFFICHAGE ==========
+
+    public static String dumpText() {
+        StringBuilder sb = new StringBuilder();
+        if (!ENABLED) {
+            return sb.append("Mesures désactivées (lancer avec -Dmorpho.metrics=true)").toString();
+        }
+
+        sb.append("=== Mesures ===\n");
+        for (Histogram h : HISTOGRAMS) {
+            sb.append(h).append('\n');
+        }
+        sb.append("Redimensionnements de la table des schèmes: ").append(SCHEME_RESIZES.sum()).append('\n');
+        for (Map.Entry<String, Long> load : LOADS.entrySet()) {
+            sb.append("Chargement ").append(load.getKey()).append(": ").append(load.getValue()).append(" ms\n");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,22 @@
+package utils;
+
+import java.util.Map;
+
+/**
+ * Vue JMX des mesures (objet "morpho:type=Metrics").
+ * Durées en nanosecondes ; clés des percentiles : "validate.p99", etc.
+ */
+public interface MetricsMXBean {
+
+    boolean isEnabled();
+
+    Map<String, Long> getCounters();
+
+    Map<String, Long> getHistograms();
+
+    Map<String, Long> getLoadDurationsMillis();
+
+    String dump();
+
+    void reset();
+}
@@ -148,11 +148,10 @@ public class Utils {
     }
     
     /**
-     * Normalise un texte arabe en retirant les diacritiques.
+     * Normalise un texte arabe en retirant les diacritiques (voir ArabicNormalizer).
      */
     public static String normalizeArabicText(String text) {
-        if (text == null) return null;
-        return text.replaceAll("[\u064B-\u065F]", "");
+        return ArabicNormalizer.DIACRITICS.normalize(text);
     }
     
     /**
@@ -163,6 +162,41 @@ public class Utils {
         return text.replace(" ", "");
     }
     
+    // ========== CLÉS ENTIÈRES DES RACINES ==========
+    
+    /**
+     * Code une racine trilitère en un entier de 24 bits (8 bits par lettre,
+     * décalage dans le bloc U+0600..U+06FF). L'ordre des entiers est celui
+     * de String.compareTo. Retourne -1 si la racine n'est pas codable.
+     */
+    public static int packRoot(CharSequence letters) {
+        if (letters == null || letters.length() != 3) {
+            return -1;
+        }
+        
+        int key = 0;
+        for (int i = 0; i < 3; i++) {
+            char c = letters.charAt(i);
+            if (!isArabicLetter(c)) {
+                return -1;
+            }
+            key = (key << 8) | (c - '\u0600');
+        }
+        return key;
+    }
+    
+    /**
+     * Décode une clé produite par packRoot.
+     */
+    public static String unpackRoot(int key) {
+        char[] letters = {
+            (char) ('\u0600' + ((key >>> 16) & 0xFF)),
+            (char) ('\u0600' + ((key >>> 8) & 0xFF)),
+            (char) ('\u0600' + (key & 0xFF))
+        };
+        return new String(letters);
+    }
+    
     // ========== COMPARAISON ET VALIDATION ==========
     
     /**